@@ -0,0 +1,49 @@
+package clarawr;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures adding a whole list one task at a time with a duplicate check before each add,
+ * as a scripted import would. The time should grow linearly with the size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkInsertBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private List<Task> tasks;
+    private TaskList taskList;
+
+    @Setup(Level.Trial)
+    public void createTasks() {
+        tasks = TaskFixtures.createTasks(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearList() {
+        taskList = new TaskList();
+    }
+
+    @Benchmark
+    public TaskList bulkInsertWithDuplicateCheck() {
+        for (Task task : tasks) {
+            if (!taskList.contains(task)) {
+                taskList.addTask(task);
+            }
+        }
+        return taskList;
+    }
+}
@@ -0,0 +1,54 @@
+package clarawr;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures parsing of saved task lines and of user commands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private String[] lines;
+    private CommandRegistry commands;
+
+    @Setup
+    public void setUp() {
+        List<Task> tasks = TaskFixtures.createTasks(size);
+        lines = new String[size];
+        for (int i = 0; i < size; i++) {
+            lines[i] = tasks.get(i).toFileString();
+        }
+
+        commands = new CommandRegistry();
+        for (String name : List.of("todo", "deadline", "event", "mark", "unmark", "list", "listbydate", "find")) {
+            commands.register(arguments -> arguments, name);
+        }
+    }
+
+    @Benchmark
+    public void parseTask(Blackhole blackhole) throws Exception {
+        for (String line : lines) {
+            blackhole.consume(Parser.parseTask(line));
+        }
+    }
+
+    @Benchmark
+    public String dispatchCommand() throws ClarawrException {
+        return commands.dispatch("deadline submit assignment /by 2025-01-01 2359");
+    }
+}
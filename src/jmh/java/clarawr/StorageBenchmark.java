@@ -0,0 +1,76 @@
+package clarawr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures writing a full snapshot and loading it back, in a temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Path directory;
+    private List<Task> tasks;
+    private Storage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ClarawrException {
+        directory = Files.createTempDirectory("clarawr-bench");
+        tasks = TaskFixtures.createTasks(size);
+        storage = new Storage(directory.resolve("clarawr.txt").toString());
+        storage.saveTasksToFile(tasks);
+    }
+
+    /**
+     * Stops the storage's background threads so they do not run into later trials, then deletes its files.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, ClarawrException {
+        storage.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            // Deepest first, so each directory is empty by the time it is deleted
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void saveTasksToFile() throws ClarawrException {
+        storage.saveTasksToFile(tasks);
+    }
+
+    @Benchmark
+    public List<Task> loadTasksFromFile() {
+        return storage.loadTasksFromFile();
+    }
+
+    @Benchmark
+    public void loadAndReadAllTasks(Blackhole blackhole) {
+        // Loading is lazy, so this also measures decoding every task
+        for (Task task : storage.loadTasksFromFile()) {
+            blackhole.consume(task);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package clarawr;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates deterministic task lists for the benchmarks.
+ * Tasks cycle through todos, deadlines and events, with descriptions drawn from a small vocabulary
+ * so that searches match a realistic share of the list.
+ */
+class TaskFixtures {
+    static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    private static final String[] WORDS = {
+        "buy", "groceries", "team", "meeting", "submit", "assignment", "read", "book",
+        "call", "mom", "project", "review", "gym", "lunch", "report", "lecture"
+    };
+
+    /**
+     * Creates a list of tasks with unique descriptions.
+     *
+     * @param size The number of tasks to create.
+     * @return The tasks, with every third task marked as done.
+     */
+    static List<Task> createTasks(int size) {
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(createTask(i));
+        }
+        return tasks;
+    }
+
+    /**
+     * Creates the task with the given number. The same number always gives an equal task.
+     *
+     * @param i The number of the task.
+     * @return The task.
+     */
+    static Task createTask(int i) {
+        String description = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+        LocalDateTime time = START.plusHours(i % 10_000);
+        boolean isDone = i % 3 == 0;
+
+        switch (i % 3) {
+        case 0:
+            return new Todo(description, isDone);
+        case 1:
+            return new Deadline(description, time, isDone);
+        default:
+            return new Event(description, time, time.plusHours(2), isDone);
+        }
+    }
+}
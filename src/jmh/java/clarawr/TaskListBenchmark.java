@@ -0,0 +1,77 @@
+package clarawr;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the queries behind the find, listbydate and list commands and the duplicate check,
+ * on an in-memory task list whose indexes are already built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskListBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private final Ui ui = new Ui();
+    private TaskList taskList;
+    private Task newTask;
+    private Task existingTask;
+    private LocalDate date;
+
+    @Setup
+    public void setUp() {
+        taskList = new TaskList();
+        taskList.addAll(TaskFixtures.createTasks(size));
+        newTask = new Todo("not in the list", false);
+        existingTask = TaskFixtures.createTask(size / 2);
+        date = TaskFixtures.START.toLocalDate().plusDays(3);
+
+        // Build the lazy indexes outside the measurement
+        taskList.findTasks("warm");
+        taskList.getTasksOn(date);
+        taskList.contains(newTask);
+    }
+
+    @Benchmark
+    public int[] findTasksByKeyword() {
+        return taskList.findTasks("team meet");
+    }
+
+    @Benchmark
+    public List<Task> listTasksByDate() {
+        return taskList.getTasksOn(date);
+    }
+
+    @Benchmark
+    public boolean isDuplicateTaskMiss() {
+        return taskList.contains(newTask);
+    }
+
+    @Benchmark
+    public boolean isDuplicateTaskHit() {
+        return taskList.contains(existingTask);
+    }
+
+    @Benchmark
+    public String showLastPageOfTasks() {
+        int lastPage = (taskList.getSize() + Ui.DEFAULT_PAGE_SIZE - 1) / Ui.DEFAULT_PAGE_SIZE;
+        return ui.showPageOfTasks(taskList, null, lastPage, Ui.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public String showFirstPageOfUndoneDeadlines() {
+        return ui.showPageOfTasks(taskList, new TaskFilter(false, TaskType.DEADLINE), 1, Ui.DEFAULT_PAGE_SIZE);
+    }
+}
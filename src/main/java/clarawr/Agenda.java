@@ -0,0 +1,138 @@
+package clarawr;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Represents the undone deadlines and events, ordered by when each is due or starts.
+ * They are kept in a balanced search tree rather than a heap, since marking or deleting a task has to take it out
+ * from the middle, which the tree does in logarithmic time. Reading the first k tasks from a point in time costs
+ * a logarithmic search plus k steps, however many tasks come after them.
+ * Tasks due at the same time are ordered by ID, which is their list order.
+ */
+class Agenda {
+    private static final Comparator<Entry> ORDER = Comparator.<Entry, LocalDateTime>comparing(entry -> entry.time)
+            .thenComparingLong(entry -> entry.id);
+
+    private final TreeSet<Entry> entries = new TreeSet<>(ORDER);
+
+    /**
+     * Constructs an agenda of the undone deadlines and events among the given tasks.
+     *
+     * @param tasks The tasks to look through. Todos and done tasks are left out.
+     */
+    Agenda(List<Task> tasks) {
+        assert tasks != null : "Tasks list cannot be null";
+
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Adds a task that was added to the list or marked as undone. Todos and done tasks are ignored.
+     *
+     * @param task The task to add.
+     */
+    void add(Task task) {
+        LocalDateTime time = getTime(task);
+        if (time != null && !task.isDone()) {
+            entries.add(new Entry(time, task));
+        }
+    }
+
+    /**
+     * Removes a task that was deleted from the list or marked as done.
+     *
+     * @param task The task to remove.
+     */
+    void remove(Task task) {
+        LocalDateTime time = getTime(task);
+        if (time != null) {
+            entries.remove(new Entry(time, task));
+        }
+    }
+
+    /**
+     * Returns the first tasks due or starting at or after the given time.
+     *
+     * @param from The earliest time to include.
+     * @param limit The most tasks to return.
+     * @return The tasks, earliest first.
+     */
+    List<Task> getFrom(LocalDateTime from, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : entries.tailSet(new Entry(from, Long.MIN_VALUE), true)) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(entry.task);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tasks due or starting at or after one time and before another.
+     *
+     * @param from The earliest time to include.
+     * @param until The time the tasks must come before.
+     * @return The tasks, earliest first.
+     */
+    List<Task> getBetween(LocalDateTime from, LocalDateTime until) {
+        List<Task> result = new ArrayList<>();
+        for (Entry entry : entries.subSet(new Entry(from, Long.MIN_VALUE), true, new Entry(until, Long.MIN_VALUE), false)) {
+            result.add(entry.task);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tasks due or starting before the given time.
+     *
+     * @param before The time the tasks must come before.
+     * @return The tasks, earliest first.
+     */
+    List<Task> getBefore(LocalDateTime before) {
+        List<Task> result = new ArrayList<>();
+        for (Entry entry : entries.headSet(new Entry(before, Long.MIN_VALUE), false)) {
+            result.add(entry.task);
+        }
+        return result;
+    }
+
+    /**
+     * Returns when a deadline is due or an event starts, or null for a todo.
+     */
+    private static LocalDateTime getTime(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getDeadline();
+        } else if (task instanceof Event) {
+            return ((Event) task).getFrom();
+        }
+        return null;
+    }
+
+    /**
+     * Represents a task in the agenda, or a point in time to search from when it has no task.
+     */
+    private static class Entry {
+        private final LocalDateTime time;
+        private final long id;
+        private final Task task;
+
+        private Entry(LocalDateTime time, Task task) {
+            this.time = time;
+            this.id = task.getId();
+            this.task = task;
+        }
+
+        private Entry(LocalDateTime time, long id) {
+            this.time = time;
+            this.id = id;
+            this.task = null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package clarawr;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs Clarawr without a window, reading one command per line and writing one response per command.
+ * Nothing in this class touches JavaFX, so a script of thousands of commands runs in the time it takes
+ * to process them rather than the time it takes to start a GUI.
+ * Changes are written to disk at the end of the script, or every few commands if checkpoints are requested.
+ */
+public class BatchMode {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final String USAGE = "Usage: --batch [file] [--checkpoint N] [--home DIR], "
+			+ "where N is how many commands to run between writes to disk, 0 for only at the end";
+
+	/**
+	 * Runs a script of commands.
+	 * Usage: {@code [file] [--checkpoint N] [--home DIR]}. Commands are read from standard input when no file is given.
+	 *
+	 * @param args The optional script file, checkpoint interval and folder of task lists.
+	 */
+	public static void main(String[] args) {
+		assert args != null : "Command-line arguments should not be null";
+
+		args = Workspace.applyHomeOption(args);
+		Metrics.startDumpingIfConfigured();
+		runScript(args);
+	}
+
+	/**
+	 * Runs a script of commands once the options shared with the GUI have been applied.
+	 * Prints the usage and exits if the arguments are malformed.
+	 *
+	 * @param args The optional script file and checkpoint interval, without the {@code --home} option.
+	 */
+	static void runScript(String[] args) {
+		String fileName = null;
+		int checkpointInterval = 0;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--checkpoint")) {
+				checkpointInterval = i + 1 < args.length ? parseCheckpointInterval(args[++i]) : -1;
+				if (checkpointInterval < 0) {
+					System.err.println(USAGE);
+					System.exit(2);
+				}
+			} else {
+				fileName = args[i];
+			}
+		}
+
+		try (InputStream in = fileName == null ? System.in : new FileInputStream(fileName)) {
+			run(new Clarawr(), in, System.out, checkpointInterval);
+		} catch (IOException e) {
+			System.err.println("Error running batch script: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Parses the number of commands between checkpoints.
+	 *
+	 * @return The interval, or -1 if it is not a whole number of zero or more.
+	 */
+	private static int parseCheckpointInterval(String value) {
+		try {
+			return Math.max(-1, Integer.parseInt(value));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Feeds every line of the input to Clarawr and writes each response on its own line.
+	 * Stops early when the script says bye.
+	 *
+	 * @param clarawr The instance that processes the commands.
+	 * @param in The commands, one per line.
+	 * @param out Where the responses are written.
+	 * @param checkpointInterval How many commands to process between writes to disk, or 0 to write only at the end.
+	 * @return The number of commands processed.
+	 * @throws IOException If the input cannot be read or the output cannot be written.
+	 */
+	static int run(Clarawr clarawr, InputStream in, OutputStream out, int checkpointInterval)
+			throws IOException {
+		assert checkpointInterval >= 0 : "Checkpoint interval cannot be negative";
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+		int count = 0;
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				writer.write(respond(clarawr, line));
+				writer.write(System.lineSeparator());
+				count++;
+
+				if (clarawr.isExit()) {
+					break;
+				}
+				if (checkpointInterval > 0 && count % checkpointInterval == 0) {
+					flush(clarawr);
+				}
+			}
+		} finally {
+			writer.flush();
+			flush(clarawr);
+		}
+		return count;
+	}
+
+	/**
+	 * Writes out every change so far. A failure is reported on standard error, so the responses stay one per command.
+	 */
+	private static void flush(Clarawr clarawr) {
+		try {
+			clarawr.flush();
+		} catch (ClarawrException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the response to one command. A malformed line is reported instead of ending the whole script.
+	 */
+	private static String respond(Clarawr clarawr, String line) {
+		try {
+			return clarawr.getResponse(line);
+		} catch (RuntimeException e) {
+			return "Error: I could not understand \"" + line + "\"";
+		}
+	}
+}
@@ -1,11 +1,11 @@
 package clarawr;
 
-import javafx.application.Platform;
-
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
-import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
 
 enum TaskType {
     TODO, DEADLINE, EVENT
@@ -17,96 +17,180 @@ enum TaskType {
  * and interacting with the user via the user interface (UI).
  */
 public class Clarawr {
-	private static final Ui ui = new Ui();
-	private static final Storage storage = new Storage();
-	private static final Parser parser = new Parser();
-	private static final TaskList taskList = new TaskList();
+	private static final int DEFAULT_UPCOMING_COUNT = 10;
+	private static final LatencyHistogram DISPATCH_LATENCY = Metrics.histogram("dispatch");
+	private static final String LIST_USAGE = "Try list [page] [done|undone] [todo|deadline|event] [--page-size N]";
+
+	private final Ui ui = new Ui();
+	private final Workspace workspace;
+	private final Reminders reminders;
+	private final CommandRegistry commands = createCommands();
+	private volatile boolean isExit;
 
 	/**
-	 * Constructs the Clarawr task management application.
-	 * Loads tasks from saved ile during initialisation.
+	 * Constructs the Clarawr task management application, keeping its lists in the folder chosen by
+	 * the {@code clarawr.home} system property or the {@code CLARAWR_HOME} environment variable.
+	 * Tasks are loaded from the saved file when the first command needs them.
 	 */
 	public Clarawr() {
-		taskList.addAll(storage.loadTasksFromFile());
+		this(Workspace.fromSettings());
 	}
 
 	/**
-	 * Handles the user input command by delegating to the appropriate method
-	 * based on the parsed command.
+	 * Constructs the Clarawr task management application over the given workspace.
 	 *
-	 * @param instruction The user input command to process.
-	 * @return A response message based on the command processed.
-	 * @throws ClarawrException If an error occurs while processing the command.
+	 * @param workspace The folder of task lists to work with.
 	 */
-	private static String handleCommand(String instruction) throws ClarawrException {
-		String[] commandParts = parser.parseCommand(instruction);
-		String command = commandParts[0].toLowerCase().trim();
-
-		switch (command) {
-		case "hi":
-			return "Hello there! I can't find my mommy...";
-
-		case "list":
-			return ui.showListOfTasks(taskList.getAllTasks());
-
-		case "todo":
-			return addTodoTask(commandParts[1]);
-
-		case "deadline":
-			return addDeadlineTask(commandParts[1]);
-
-		case "event":
-			return addEventTask(commandParts[1]);
+	Clarawr(Workspace workspace) {
+		assert workspace != null : "Workspace cannot be null";
+		this.workspace = workspace;
+		this.reminders = new Reminders(workspace::getLoadedTaskList, workspace::getActiveName,
+				Reminders.leadTimesFromSettings());
+	}
 
-		case "mark":
-			return markTaskDone(commandParts[1]);
+	/**
+	 * Registers every command with its handler and aliases.
+	 *
+	 * @return The registry of all commands.
+	 */
+	private CommandRegistry createCommands() {
+		CommandRegistry commands = new CommandRegistry();
+		commands.register(arguments -> "Hello there! I can't find my mommy...", "hi");
+		commands.register(this::listTasks, "list");
+		commands.register(this::addTodoTask, "todo");
+		commands.register(this::addDeadlineTask, "deadline");
+		commands.register(this::addEventTask, "event");
+		commands.register(this::markTaskDone, "mark");
+		commands.register(this::markTaskUndone, "unmark");
+		commands.register(this::deleteTask, "delete", "remove");
+		commands.register(this::listTasksByDate, "listbydate");
+		commands.register(this::listTasksBetween, "listbetween");
+		commands.register(this::findTasksByKeyword, "find");
+		commands.register(arguments -> showNextTask(), "next");
+		commands.register(this::listUpcomingTasks, "upcoming");
+		commands.register(arguments -> listOverdueTasks(), "overdue");
+		commands.register(arguments -> listConflicts(), "conflicts");
+		commands.register(this::listFreeTimes, "free");
+		commands.register(this::switchList, "switch");
+		commands.register(arguments -> "Here's where my time goes:\n" + Metrics.report(), "stats");
+		commands.register(arguments -> sayBye(), "bye");
+		return commands;
+	}
 
-		case "unmark":
-			return markTaskUndone(commandParts[1]);
+	/**
+	 * Returns the task list in use, loading it from disk on first use.
+	 */
+	private TaskList taskList() {
+		return workspace.getTaskList();
+	}
 
-		case "delete":
-		case "remove":
-			return deleteTask(commandParts[1]);
+	/**
+	 * Handles the user input command by passing it to the command registry,
+	 * which picks the command from the first word of the input.
+	 *
+	 * @param instruction The user input command to process.
+	 * @return A response message based on the command processed.
+	 * @throws ClarawrException If an error occurs while processing the command.
+	 */
+	private String handleCommand(String instruction) throws ClarawrException {
+		String response = commands.dispatch(instruction);
+		if (response == null) {
+			return "Sorry, I do not understand your instruction *whimpers* ... typo?";
+		}
+		return response;
+	}
 
-		case "listbydate":
-			return listTasksByDate(commandParts[1]);
+	private String sayBye() throws ClarawrException {
+		isExit = true;
+		workspace.flush();
+		return "Bye! Come back soon or I'll get hungry RAWR";
+	}
 
-		case "find":
-			return findTasksByKeyword(commandParts[1]);
+	/**
+	 * Lists one page of tasks, optionally keeping only those with a given status or type.
+	 * The options can be given in any order, e.g. "2 undone deadline --page-size 20".
+	 *
+	 * @param options The page number, page size and filter words, separated by spaces. May be empty.
+	 * @return The tasks on the requested page, numbered by their position in the full list.
+	 * @throws ClarawrException If an option is not recognised or a number is invalid.
+	 */
+	private String listTasks(String options) throws ClarawrException {
+		assert options != null : "Options cannot be null";
+
+		int page = 1;
+		int pageSize = Ui.DEFAULT_PAGE_SIZE;
+		Boolean isDone = null;
+		TaskType type = null;
+
+		String[] words = options.trim().split("\\s+");
+		for (int i = 0; i < words.length; i++) {
+			switch (words[i].toLowerCase()) {
+			case "":
+				break;
+			case "done":
+				isDone = true;
+				break;
+			case "undone":
+				isDone = false;
+				break;
+			case "todo":
+				type = TaskType.TODO;
+				break;
+			case "deadline":
+				type = TaskType.DEADLINE;
+				break;
+			case "event":
+				type = TaskType.EVENT;
+				break;
+			case "--page-size":
+				if (i + 1 == words.length) {
+					throw new ClarawrException("How many tasks per page? e.g. list --page-size 200");
+				}
+				pageSize = parsePositive(words[++i], LIST_USAGE);
+				break;
+			default:
+				page = parsePositive(words[i], LIST_USAGE);
+			}
+		}
 
-		case "bye":
-			Storage.saveTasksToFile(taskList.getAllTasks());
-			Platform.exit();
+		TaskFilter filter = isDone == null && type == null ? null : new TaskFilter(isDone, type);
+		return ui.showPageOfTasks(taskList(), filter, page, pageSize);
+	}
 
-		default:
-			return "Sorry, I do not understand your instruction *whimpers* ... typo?";
+	private static int parsePositive(String number, String usage) throws ClarawrException {
+		try {
+			int value = Integer.parseInt(number);
+			if (value > 0) {
+				return value;
+			}
+		} catch (NumberFormatException e) {
+			// Reported below along with zero and negative numbers
 		}
+		throw new ClarawrException("RAWR I don't know what " + number + " means here. " + usage);
 	}
 
 	/**
-		* Searches for tasks in the task list that contain the specified keyword in their description.
-		* Displays all matching tasks or a message if no matches are found.
+		* Searches for tasks in the task list whose descriptions contain words starting with the specified keyword.
+		* Displays all matching tasks with their list numbers, or a message if no matches are found.
 		*
 		* @param keyword The keyword to search for in task descriptions. Case-insensitive.
 		* @return A string message listing matching tasks or indicating no matches.
 		* @throws ClarawrException If the keyword is null or empty.
 		*/
-	private static String findTasksByKeyword(String keyword) throws ClarawrException {
+	private String findTasksByKeyword(String keyword) throws ClarawrException {
 		if (keyword == null || keyword.trim().isEmpty()) {
 			throw new ClarawrException("Oops! The keyword cannot be empty. Please enter a valid search term.");
 		}
 
 		StringBuilder result = new StringBuilder("Here are the matching tasks:\n");
-		boolean isFound = false;
+		int[] indexes = taskList().findTasks(keyword);
 
-		for (Task task : taskList.getAllTasks()) {
-			if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
-				result.append(task).append("\n");
-				isFound = true;
-			}
+		for (int index : indexes) {
+			Task task = taskList().getTask(index);
+			result.append(index + 1).append(". #").append(task.getId()).append(task).append("\n");
 		}
 
-		if (!isFound) {
+		if (indexes.length == 0) {
 			result.append("RAWR YOU WASTED MY TIME NO TASKS FOUND");
 		}
 
@@ -120,7 +204,7 @@ public class Clarawr {
 	 * @return A message confirming that the Todo task has been added.
 	 * @throws ClarawrException If the description is empty.
 	 */
-	private static String addTodoTask(String description) throws ClarawrException {
+	private String addTodoTask(String description) throws ClarawrException {
 		assert description != null : "Description cannot be null";
 		if (description.isEmpty()) {
 			throw new ClarawrException("Please add a description *sniffs* I don't know what you are talking about...");
@@ -131,24 +215,20 @@ public class Clarawr {
 			return "RAWR! You already have the task in your list dummy";
 		}
 
-		taskList.addTask(task);
+		taskList().addTask(task);
 		return "Better feed me as I've added this task: " + task;
 	}
 
 	/**
 	 * Checks whether the given task is a duplicate in the task list.
 	 * A task is considered a duplicate if it already exists in the list of tasks, based on equality.
+	 * The check is a hash lookup, so adding many tasks in a row stays linear overall.
 	 *
 	 * @param task The task to be checked for duplication.
 	 * @return true if the task is a duplicate (exists in the task list), false otherwise.
 	 */
-	private static boolean isDuplicateTask(Task task) {
-		for (Task existingTask : taskList.getAllTasks()) {
-			if (existingTask.equals(task)) {
-				return true;
-			}
-		}
-		return false;
+	private boolean isDuplicateTask(Task task) {
+		return taskList().contains(task);
 	}
 
 	/**
@@ -158,212 +238,485 @@ public class Clarawr {
 	 * @return A message confirming that the Deadline task has been added.
 	 * @throws ClarawrException If the description or deadline is missing or malformed.
 	 */
-	private static String addDeadlineTask(String details) throws ClarawrException {
+	private String addDeadlineTask(String details) throws ClarawrException {
 		assert details != null : "Details cannot be null";
 
-		String[] parts = details.split(" /by ");
-
-		assert parts.length == 2 : "The details should contain both a description and deadline separated by ' /by '";
-
-		if (parts.length < 2) {
-			throw new ClarawrException("Tell me the description and deadline please.");
-		}
-
-		LocalDateTime deadline = Parser.parseDeadlineTime(parts[1]);
-		Task task = new Deadline(parts[0], deadline, false);
+		TaskArguments arguments = TaskArguments.parse(details, "/by");
+		LocalDateTime deadline = Parser.parseDateTime(arguments.get("/by"), "/by");
+		Task task = new Deadline(arguments.getDescription(), deadline, false);
 
 		if (isDuplicateTask(task)) {
 			return "RAWR! How many times do you want to add it? It is already in the list.";
 		}
 
-		taskList.addTask(task);
+		taskList().addTask(task);
 		return "HEHE, I've added this task: " + task;
 	}
 
 	/**
-	 * Adds a new Event task to the task list.
+	 * Adds a new Event task to the task list, warning about any events it clashes with.
 	 *
 	 * @param details The description and timing of the Event task in the format
 	 *                   "description /from start_time /to end_time".
 	 * @return A message confirming that the Event task has been added.
 	 * @throws ClarawrException If the description or timing information is missing or malformed.
 	 */
-	private static String addEventTask(String details) throws ClarawrException {
+	private String addEventTask(String details) throws ClarawrException {
 		assert details != null : "Details cannot be null";
-		String[] parts = details.split(" /from ");
 
-		assert parts.length == 2 : "The event details should contain both a " +
-				"description and a start time separated by ' /from '";
-
-		if (parts.length < 2) {
-			throw new ClarawrException("The description and timing of an event cannot be empty.");
+		TaskArguments arguments = TaskArguments.parse(details, "/from", "/to");
+		LocalDateTime from = Parser.parseDateTime(arguments.get("/from"), "/from");
+		LocalDateTime to = Parser.parseDateTime(arguments.get("/to"), "/to");
+		if (!to.isAfter(from)) {
+			throw new ClarawrException("Time travel? The event has to end after it starts.");
 		}
 
-		String[] times = parts[1].split(" /to ");
+		Task task = new Event(arguments.getDescription(), from, to, false);
 
-		assert times.length == 2 : "The event should contain both a start time and an end time separated by ' /to '";
+		if (isDuplicateTask(task)) {
+			return "No! Not going to add a duplicate man.";
+		}
 
-		if (times.length < 2) {
-			throw new ClarawrException("The description and both event times cannot be empty.");
+		List<Event> clashes = taskList().getOverlappingEvents(from, to);
+		taskList().addTask(task);
+		StringBuilder result = new StringBuilder("RAWR! I've added this task: ").append(task);
+		if (!clashes.isEmpty()) {
+			result.append("\nHeads up! It clashes with:\n");
+			appendTasks(result, clashes);
 		}
+		return result.toString();
+	}
 
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-		LocalDateTime from = LocalDateTime.parse(times[0].trim(), formatter);
-		LocalDateTime to = LocalDateTime.parse(times[1].trim(), formatter);
+	/**
+		* Marks the selected tasks as done. Several tasks are marked as one change, saved once.
+		*
+		* @param selection The tasks to mark, as described in {@link #parseTaskIndexes(String)}.
+		* @return A confirmation message indicating the tasks have been marked as done.
+		* @throws ClarawrException If the selection is invalid or selects no tasks.
+		*/
+	private String markTaskDone(String selection) throws ClarawrException {
+		assert selection != null : "Selection cannot be null";
 
-		assert from.isBefore(to) : "The start time must be before the end time.";
+		int[] indexes = parseTaskIndexes(selection);
+		if (indexes.length > 1) {
+			taskList().markTasksAsDone(indexes);
+			return "Wow, someone's productive! I've marked these " + indexes.length + " tasks as done.";
+		}
 
-		Task task = new Event(parts[0], from, to, false);
+		taskList().markTaskAsDone(indexes[0]);
+		return "Wow, someone's productive! I've marked this task as done: " + taskList().getTask(indexes[0]);
+	}
 
-		if (isDuplicateTask(task)) {
-			return "No! Not going to add a duplicate man.";
+	/**
+		* Marks the selected tasks as undone. Several tasks are marked as one change, saved once.
+		*
+		* @param selection The tasks to unmark, as described in {@link #parseTaskIndexes(String)}.
+		* @return A confirmation message indicating the tasks have been marked as not done.
+		* @throws ClarawrException If the selection is invalid or selects no tasks.
+		*/
+	private String markTaskUndone(String selection) throws ClarawrException {
+		assert selection != null : "Selection cannot be null";
+
+		int[] indexes = parseTaskIndexes(selection);
+		if (indexes.length > 1) {
+			taskList().markTasksAsUndone(indexes);
+			return "Why did you even mark them as done in the first place?" +
+											" I've marked these " + indexes.length + " tasks as not done yet.";
 		}
 
-		taskList.addTask(task);
-		return "RAWR! I've added this task: " + task;
+		taskList().markTaskAsUndone(indexes[0]);
+		return "Why did you even mark it as done in the first place?" +
+										" I've marked this task as not done yet: " + taskList().getTask(indexes[0]);
 	}
 
 	/**
-		* Marks a task as done based on the provided index.
+		* Deletes the selected tasks. Several tasks are deleted in one pass over the list, saved once.
 		*
-		* @param indexStr The index of the task to be marked as done (1-based index).
-		* @return A confirmation message indicating the task has been marked as done.
-		* @throws ClarawrException If the input is not a valid integer or if the index is out of range.
+		* @param selection The tasks to delete, as described in {@link #parseTaskIndexes(String)}.
+		* @return A message confirming that the tasks have been deleted.
+		* @throws ClarawrException If the selection is invalid or selects no tasks.
 		*/
-	private static String markTaskDone(String indexStr) throws ClarawrException {
-		assert indexStr != null : "Index string cannot be null";
+	private String deleteTask(String selection) throws ClarawrException {
+		assert selection != null : "Selection cannot be null";
 
-		try {
-			int index = Integer.parseInt(indexStr) - 1; // Convert string to zero-based index
+		int[] indexes = parseTaskIndexes(selection);
+		if (indexes.length > 1) {
+			taskList().deleteTasks(indexes);
+			return "*BURP* I've eaten these " + indexes.length + " tasks hehe";
+		}
+
+		Task taskToDelete = taskList().getTask(indexes[0]);
+		taskList().deleteTask(indexes[0]);
+		return "*BURP* I've eaten this task hehe: " + taskToDelete;
+	}
 
-			if (index < 0 || index >= taskList.getSize()) {
-				throw new ClarawrException("Oops! The task number you provided is out of bounds dumdum.");
+	/**
+	 * Turns a selection of tasks typed by the user into their zero-based positions.
+	 * The selection is a list of items separated by commas or spaces, e.g. "1,5,9", "3-40" or "done".
+	 * Each item is a task reference as described in {@link #parseTaskIndex(String)}, a range of two references
+	 * joined by a dash, or "done" or "undone" to select every task with that status.
+	 *
+	 * @param selection The tasks to select.
+	 * @return The zero-based indexes of the selected tasks, in increasing order without repeats.
+	 * @throws ClarawrException If an item is invalid, a range is backwards, or nothing is selected.
+	 */
+	private int[] parseTaskIndexes(String selection) throws ClarawrException {
+		BitSet selected = new BitSet();
+		for (String item : selection.trim().split("[,\\s]+")) {
+			switch (item.toLowerCase()) {
+			case "":
+				break;
+			case "done":
+				selectMatching(new TaskFilter(true, null), selected);
+				break;
+			case "undone":
+				selectMatching(new TaskFilter(false, null), selected);
+				break;
+			default:
+				int dash = item.indexOf('-', 1);
+				if (dash < 0) {
+					selected.set(parseTaskIndex(item));
+					break;
+				}
+				int from = parseTaskIndex(item.substring(0, dash));
+				int to = parseTaskIndex(item.substring(dash + 1));
+				if (from > to) {
+					throw new ClarawrException("RAWR " + item + " goes backwards. Try the smaller number first.");
+				}
+				selected.set(from, to + 1);
 			}
+		}
 
-			taskList.markTaskAsDone(index);
-			return "Wow, someone's productive! I've marked this task as done: " + taskList.getTask(index);
+		if (selected.isEmpty()) {
+			throw new ClarawrException("Hmm... there are no tasks like that for me to chomp.");
+		}
+		return selected.stream().toArray();
+	}
+
+	private void selectMatching(TaskFilter filter, BitSet selected) {
+		taskList().forEachTask(filter, 0, Integer.MAX_VALUE, (task, index) -> selected.set(index));
+	}
 
+	/**
+	 * Turns a task reference typed by the user into the task's zero-based position.
+	 * A plain number is the task's position in the list, which changes as earlier tasks are deleted.
+	 * A number preceded by # is the task's ID, which never changes.
+	 *
+	 * @param taskStr The position of the task (1-based index), or its ID preceded by #.
+	 * @return The zero-based index of the task.
+	 * @throws ClarawrException If the input is not a number, or no task has that position or ID.
+	 */
+	private int parseTaskIndex(String taskStr) throws ClarawrException {
+		String reference = taskStr.trim();
+		boolean isId = reference.startsWith("#");
+		long number;
+		try {
+			number = Long.parseLong(isId ? reference.substring(1) : reference);
 		} catch (NumberFormatException e) {
-			throw new ClarawrException("Oopsie Daisy! That doesn't seem like a valid task number. Please enter a valid integer.");
-		} catch (IndexOutOfBoundsException e) {
-			throw new ClarawrException("Oops! The task number you provided is out of bounds.");
+			throw new ClarawrException("Oopsie Daisy! That doesn't seem like a valid task number. "
+					+ "Please enter a task number like 3 or an ID like #12.");
 		}
+
+		if (isId) {
+			int index = taskList().indexOf(number);
+			if (index < 0) {
+				throw new ClarawrException("RAWR there's no task with ID #" + number + ". Maybe I already ate it?");
+			}
+			return index;
+		}
+		if (number < 1 || number > taskList().getSize()) {
+			throw new ClarawrException("Oops! The task number you provided is out of bounds dummy check the list lol.");
+		}
+		return (int) number - 1;
 	}
 
 	/**
-		* Marks a task as undone based on the provided index.
-		*
-		* @param indexStr The index of the task to be marked as undone, provided as a string.
-		* @return A confirmation message indicating the task has been marked as not done.
-		* @throws ClarawrException If the input is not a valid integer or if the index is out of bounds.
-		*/
-	private static String markTaskUndone(String indexStr) throws ClarawrException {
-		assert indexStr != null : "Index string cannot be null";
-
-		try {
-			int index = Integer.parseInt(indexStr) - 1; // Convert string to integer
+	 * Switches to another named task list, or lists the saved lists when no name is given.
+	 * The list in use is saved and dropped from memory, and the new one is loaded when a command first needs it.
+	 *
+	 * @param name The name of the list to use, e.g. "work". May be empty.
+	 * @return A message naming the list now in use, or the names of all lists.
+	 * @throws ClarawrException If the name is not a valid list name.
+	 */
+	private String switchList(String name) throws ClarawrException {
+		assert name != null : "Name cannot be null";
 
-			if (index < 0 || index >= taskList.getSize()) {
-				throw new ClarawrException("Oops! The task number you provided is out of bounds dummy.");
+		if (name.isBlank()) {
+			StringBuilder result = new StringBuilder("Here are your lists:\n");
+			for (String listName : workspace.getListNames()) {
+				result.append(listName.equals(workspace.getActiveName()) ? "* " : "  ").append(listName).append("\n");
 			}
+			return result.append("Use switch [name] to change lists, or to start a new one.").toString();
+		}
 
-			taskList.markTaskAsUndone(index);
-			return "Why did you even mark it as done in the first place?" +
-											" I've marked this task as not done yet: " + taskList.getTask(index);
+		workspace.switchTo(name);
+		return "RAWR! Now chewing on the " + workspace.getActiveName() + " list.";
+	}
 
-		} catch (NumberFormatException e) {
-			throw new ClarawrException("Oopsie Daisy! That doesn't seem like a valid task number. Please enter a valid integer.");
-		} catch (IndexOutOfBoundsException e) {
-			throw new ClarawrException("Oops! The task number you provided is out of bounds dummy.");
+	/**
+	 * Lists tasks by a specific date.
+	 * Events that span several days are listed on every day they cover.
+	 *
+	 * @param dateStr The date to filter tasks by (in the format "yyyy-MM-dd").
+	 * @return A list of tasks that fall on the specified date.
+	 * @throws ClarawrException If the date format is invalid.
+	 */
+	private String listTasksByDate(String dateStr) throws ClarawrException {
+		assert dateStr != null : "Date string cannot be null";
+
+		LocalDate filterDate = parseDate(dateStr);
+
+		StringBuilder result = new StringBuilder("Tasks on " + filterDate + ":\n");
+		List<Task> tasks = taskList().getTasksOn(filterDate);
+
+		for (Task task : tasks) {
+			result.append(task).append("\n");
+		}
+
+		if (tasks.isEmpty()) {
+			result.append("No tasks for this date.");
 		}
+
+		return result.toString();
 	}
 
 	/**
-		* Deletes a task by its index.
-		*
-		* @param indexStr The index of the task to delete (1-based index).
-		* @return A message confirming that the task has been deleted.
-		* @throws ClarawrException If the index is invalid, out of range, or not a number.
-		*/
-	private static String deleteTask(String indexStr) throws ClarawrException {
-		assert indexStr != null : "Index string cannot be null";
+	 * Lists tasks that fall between two dates, inclusive.
+	 *
+	 * @param datesStr The two dates of the range separated by a space (each in the format "yyyy-MM-dd").
+	 * @return A list of tasks that fall within the range, ordered by date.
+	 * @throws ClarawrException If either date is missing or invalid, or the range is backwards.
+	 */
+	private String listTasksBetween(String datesStr) throws ClarawrException {
+		assert datesStr != null : "Dates string cannot be null";
 
-		try {
-			int index = Integer.parseInt(indexStr) - 1; // Convert to zero-based index
+		String[] dates = datesStr.trim().split("\\s+");
+		if (dates.length != 2) {
+			throw new ClarawrException("Give me two dates please! e.g. listbetween 2025-02-01 2025-02-28");
+		}
 
-			if (index < 0 || index >= taskList.getSize()) {
-				throw new ClarawrException("Oops! The task number you provided is out of bounds dummy check the list lol.");
-			}
+		LocalDate from = parseDate(dates[0]);
+		LocalDate to = parseDate(dates[1]);
+		if (from.isAfter(to)) {
+			throw new ClarawrException("RAWR the first date must not be after the second date.");
+		}
 
-			Task taskToDelete = taskList.getTask(index);
-			taskList.deleteTask(index);
-			return "*BURP* I've eaten this task hehe: " + taskToDelete;
+		StringBuilder result = new StringBuilder("Tasks from " + from + " to " + to + ":\n");
+		List<Task> tasks = taskList().getTasksBetween(from, to);
 
-		} catch (NumberFormatException e) {
-			throw new ClarawrException("Oops! That doesn't seem like a valid task number. Please enter a valid integer.");
-		} catch (IndexOutOfBoundsException e) {
-			throw new ClarawrException("Oops! The task number you provided is out of bounds... hais.. ");
+		for (Task task : tasks) {
+			result.append(task).append("\n");
+		}
+
+		if (tasks.isEmpty()) {
+			result.append("No tasks between these dates.");
 		}
+
+		return result.toString();
 	}
 
 	/**
-	 * Lists tasks by a specific date.
+	 * Shows the undone deadline or event that is due or starts soonest from now.
 	 *
-	 * @param dateStr The date to filter tasks by (in the format "yyyy-MM-dd").
-	 * @return A list of tasks that fall on the specified date.
+	 * @return The next task, or a message if nothing is coming up.
+	 */
+	private String showNextTask() {
+		List<Task> tasks = taskList().getUpcomingTasks(LocalDateTime.now(), 1);
+		if (tasks.isEmpty()) {
+			return "Nothing coming up! Time for a nap RAWR";
+		}
+		return appendTasks(new StringBuilder("Up next:\n"), tasks).toString();
+	}
+
+	/**
+	 * Lists the undone deadlines and events that are due or start soonest from now.
+	 *
+	 * @param count How many tasks to list, or empty for the default of 10.
+	 * @return The tasks, earliest first, numbered by their position in the list.
+	 * @throws ClarawrException If the count is not a positive number.
+	 */
+	private String listUpcomingTasks(String count) throws ClarawrException {
+		assert count != null : "Count cannot be null";
+
+		int limit = count.isBlank() ? DEFAULT_UPCOMING_COUNT : parsePositive(count.trim(), "Try upcoming [how many]");
+		List<Task> tasks = taskList().getUpcomingTasks(LocalDateTime.now(), limit);
+		if (tasks.isEmpty()) {
+			return "Nothing coming up! Time for a nap RAWR";
+		}
+		return appendTasks(new StringBuilder("Coming up next:\n"), tasks).toString();
+	}
+
+	/**
+	 * Lists the undone deadlines that have passed and the undone events that have started.
+	 *
+	 * @return The tasks, earliest first, numbered by their position in the list.
+	 */
+	private String listOverdueTasks() {
+		List<Task> tasks = taskList().getOverdueTasks(LocalDateTime.now());
+		if (tasks.isEmpty()) {
+			return "Nothing overdue. Good human *purrs*";
+		}
+		return appendTasks(new StringBuilder("RAWR these are late:\n"), tasks).toString();
+	}
+
+	/**
+	 * Appends one line per task with its position in the list and its ID.
+	 * Each position is found by ID, so listing k tasks costs k logarithmic lookups.
+	 */
+	private StringBuilder appendTasks(StringBuilder result, List<? extends Task> tasks) {
+		for (Task task : tasks) {
+			int index = taskList().indexOf(task.getId());
+			result.append(index + 1).append(". #").append(task.getId()).append(task).append("\n");
+		}
+		return result;
+	}
+
+	/**
+	 * Lists every pair of events that overlap each other.
+	 *
+	 * @return The clashing pairs, or a message if there are none.
+	 */
+	private String listConflicts() {
+		List<Event[]> conflicts = taskList().getConflicts();
+		if (conflicts.isEmpty()) {
+			return "No clashes! Your events get along nicely.";
+		}
+
+		StringBuilder result = new StringBuilder("RAWR these events clash:\n");
+		for (Event[] pair : conflicts) {
+			result.append("#").append(pair[0].getId()).append(pair[0]).append("\n")
+					.append("   with #").append(pair[1].getId()).append(pair[1]).append("\n");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Lists the stretches of a day that no event takes up.
+	 *
+	 * @param dateStr The day to look at (in the format "yyyy-MM-dd").
+	 * @return The free stretches of the day, from 00:00 to 24:00.
 	 * @throws ClarawrException If the date format is invalid.
 	 */
-	private static String listTasksByDate(String dateStr) throws ClarawrException {
+	private String listFreeTimes(String dateStr) throws ClarawrException {
 		assert dateStr != null : "Date string cannot be null";
 
+		LocalDate date = parseDate(dateStr.trim());
+		LocalDateTime startOfDay = date.atStartOfDay();
+		LocalDateTime endOfDay = startOfDay.plusDays(1);
+		List<LocalDateTime[]> freeTimes = taskList().getFreeTimes(startOfDay, endOfDay);
+		if (freeTimes.isEmpty()) {
+			return "RAWR " + date + " is fully booked!";
+		}
+
+		StringBuilder result = new StringBuilder("You're free on " + date + ":\n");
+		for (LocalDateTime[] freeTime : freeTimes) {
+			result.append(formatTimeOfDay(freeTime[0], date)).append(" - ")
+					.append(formatTimeOfDay(freeTime[1], date)).append("\n");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Formats a time on the given day as "HH:mm", with the midnight that ends the day as "24:00".
+	 */
+	private static String formatTimeOfDay(LocalDateTime time, LocalDate date) {
+		if (!time.toLocalDate().equals(date)) {
+			return "24:00";
+		}
+		return String.format("%02d:%02d", time.getHour(), time.getMinute());
+	}
+
+	/**
+	 * Parses a date in the format "yyyy-MM-dd".
+	 *
+	 * @param dateStr The date to parse.
+	 * @return The parsed date.
+	 * @throws ClarawrException If the date format is invalid or the date does not exist.
+	 */
+	private static LocalDate parseDate(String dateStr) throws ClarawrException {
 		// Validate format YYYY-MM-DD using regex
 		if (!dateStr.matches("\\d{4}-\\d{2}-\\d{2}")) {
 			throw new ClarawrException("BRUH invalid date format. Please use YYYY-MM-DD.");
 		}
 
-		LocalDate filterDate;
 		try {
-			filterDate = LocalDate.parse(dateStr);
+			return LocalDate.parse(dateStr);
 		} catch (DateTimeParseException e) {
 			throw new ClarawrException("Invalid date input. You dumdum please ensure the date exists (e.g., no 2025-02-30).");
 		}
+	}
 
-		StringBuilder result = new StringBuilder("Tasks on " + filterDate + ":\n");
-		boolean isFound = false;
-
-		for (Task task : taskList.getAllTasks()) {
-			if (task instanceof Deadline) {
-				Deadline deadline = (Deadline) task;
-				if (deadline.getDeadline().toLocalDate().equals(filterDate)) {
-					result.append(task).append("\n");
-					isFound = true;
-				}
-			} else if (task instanceof Event) {
-				Event event = (Event) task;
-				if (event.getFrom().toLocalDate().equals(filterDate)) {
-					result.append(task).append("\n");
-					isFound = true;
-				}
-			}
-		}
+	/**
+	 * Waits until every change made so far has been written to disk.
+	 *
+	 * @throws ClarawrException If a change could not be written.
+	 */
+	public void flush() throws ClarawrException {
+		workspace.flush();
+	}
 
-		if (!isFound) {
-			result.append("No tasks for this date.");
-		}
+	/**
+	 * Starts reminding the user of deadlines and events in the list in use, a set time before they are due or start.
+	 * The lead times are set by the {@code clarawr.reminders} system property.
+	 *
+	 * @param onReminder The callback that shows a reminder, called on a background thread.
+	 */
+	public void startReminders(Consumer<String> onReminder) {
+		reminders.start(onReminder);
+	}
 
-		return result.toString();
+	/**
+	 * Stops the reminders started by {@link #startReminders(Consumer)}.
+	 */
+	public void stopReminders() {
+		reminders.stop();
 	}
+
+	/**
+	 * Returns whether the user has said bye, after which the caller should close the application.
+	 *
+	 * @return true if bye has been processed, false otherwise.
+	 */
+	public boolean isExit() {
+		return isExit;
+	}
+
+	/**
+	 * Completes a partly typed command name, as far as it can be completed without guessing.
+	 *
+	 * @param input The text typed so far.
+	 * @return The completed text, or the input unchanged if there is nothing to complete.
+	 */
+	public String completeCommand(String input) {
+		return commands.complete(input);
+	}
+
 	/**
 	 * Returns the response for the user input command.
+	 * If an earlier change could not be saved in the background, a warning is added to the response.
+	 * The time taken is recorded in {@link Metrics} as "dispatch", which counts unknown commands too.
 	 *
 	 * @param input The user input command to process.
 	 * @return The response message based on the processed command.
 	 */
 	public String getResponse(String input) {
+		long start = System.nanoTime();
+		boolean isError = true;
+		String response;
+		try {
+			response = handleCommand(input);
+			isError = false;
+		} catch (ClarawrException e) {
+			response = "Error: " + e.getMessage();
+		} finally {
+			DISPATCH_LATENCY.recordSince(start, isError);
+		}
+
 		try {
-			return handleCommand(input);
+			workspace.checkSaved();
 		} catch (ClarawrException e) {
-			return "Error: " + e.getMessage();
+			response += "\nWarning: " + e.getMessage();
 		}
+		return response;
 	}
 }
\ No newline at end of file
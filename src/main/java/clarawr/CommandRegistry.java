@@ -0,0 +1,262 @@
+package clarawr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the commands Clarawr understands, kept in a prefix tree of their names and aliases.
+ * A command is found by walking the tree one character of the input at a time, ignoring case,
+ * so dispatching neither splits nor lower-cases the input. Any prefix that leads to a single command
+ * selects it, e.g. "dea" for deadline, while a full name always selects its own command, e.g. "list"
+ * even though "listbydate" starts with it. The same tree provides completions for a partly typed name.
+ * Commands are registered once, before the registry is shared, after which it is only read.
+ * Every run of a command is timed, and counted as an error if it throws, under "command" and its name in {@link Metrics},
+ * and emitted as a {@link FlightEvents.CommandExecuted} event when a flight recording is running.
+ */
+class CommandRegistry {
+    private final Node root = new Node();
+
+    /**
+     * Handles one command, given everything typed after the command name.
+     */
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * Runs the command.
+         *
+         * @param arguments The text after the command name, with leading spaces removed. Empty if there is none.
+         * @return The response to show the user.
+         * @throws ClarawrException If the arguments are invalid.
+         */
+        String handle(String arguments) throws ClarawrException;
+    }
+
+    /**
+     * Registers a command under its name and any aliases.
+     * Names are made of lower-case letters, and each may only be registered once.
+     *
+     * @param handler The handler that runs the command.
+     * @param name The name of the command, used when listing commands.
+     * @param aliases Other names for the same command.
+     */
+    void register(Handler handler, String name, String... aliases) {
+        assert handler != null : "Handler cannot be null";
+
+        Command command = new Command(name, handler);
+        add(name, command);
+        for (String alias : aliases) {
+            add(alias, command);
+        }
+    }
+
+    private void add(String name, Command command) {
+        assert name != null && !name.isEmpty() : "Command name cannot be null or empty";
+
+        Node node = root;
+        node.reach(command);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            assert c >= 'a' && c <= 'z' : "Command names are made of lower-case letters";
+            node = node.childOrCreate(c);
+            node.reach(command);
+        }
+        assert node.command == null : "Command name is already registered: " + name;
+        node.command = command;
+    }
+
+    /**
+     * Runs the command named by the first word of the input.
+     * The name may be any unambiguous prefix of a command's name or alias, in any case.
+     *
+     * @param input The line typed by the user.
+     * @return The response of the command, or null if no command starts with the first word.
+     * @throws ClarawrException If the first word could be several commands, or the command fails.
+     */
+    String dispatch(String input) throws ClarawrException {
+        assert input != null : "Input cannot be null";
+
+        int start = skipSpaces(input, 0);
+        int end = start;
+        while (end < input.length() && !Character.isWhitespace(input.charAt(end))) {
+            end++;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        Node node = find(input, start, end);
+        if (node == null) {
+            return null;
+        }
+        Command command = node.command != null ? node.command : node.only;
+        if (command == null) {
+            throw new ClarawrException("RAWR did you mean " + describe(node) + "?");
+        }
+        String arguments = input.substring(skipSpaces(input, end));
+        FlightEvents.CommandExecuted event = new FlightEvents.CommandExecuted();
+        event.begin();
+        long startNanos = System.nanoTime();
+        boolean isError = true;
+        try {
+            String response = command.handler.handle(arguments);
+            isError = false;
+            return response;
+        } finally {
+            command.latency.recordSince(startNanos, isError);
+            if (event.shouldCommit()) {
+                event.command = command.name;
+                event.argumentLength = arguments.length();
+                event.outcome = isError ? "error" : "ok";
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Completes a partly typed command name as far as every matching name agrees.
+     * If only one name matches, it is completed in full and followed by a space, ready for the arguments.
+     * Input that already holds a space, or matches no name, is returned unchanged.
+     *
+     * @param input The text typed so far.
+     * @return The completed text.
+     */
+    String complete(String input) {
+        assert input != null : "Input cannot be null";
+
+        if (input.isEmpty() || input.indexOf(' ') >= 0) {
+            return input;
+        }
+        Node node = find(input, 0, input.length());
+        if (node == null) {
+            return input;
+        }
+
+        StringBuilder completed = new StringBuilder(input.toLowerCase());
+        while (node.command == null && node.keys.length == 1) {
+            completed.append(node.keys[0]);
+            node = node.children[0];
+        }
+        if (node.keys.length == 0) {
+            completed.append(' ');
+        }
+        return completed.toString();
+    }
+
+    private Node find(String input, int start, int end) {
+        Node node = root;
+        for (int i = start; i < end && node != null; i++) {
+            node = node.child(Character.toLowerCase(input.charAt(i)));
+        }
+        return node;
+    }
+
+    private static int skipSpaces(String input, int index) {
+        while (index < input.length() && Character.isWhitespace(input.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Lists the names of the commands reachable from a node, e.g. "list, listbetween or listbydate".
+     */
+    private static String describe(Node node) {
+        Map<Command, Boolean> commands = new IdentityHashMap<>();
+        List<String> names = new ArrayList<>();
+        collectCommands(node, commands, names);
+        names.sort(null);
+
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                description.append(i == names.size() - 1 ? " or " : ", ");
+            }
+            description.append(names.get(i));
+        }
+        return description.toString();
+    }
+
+    private static void collectCommands(Node node, Map<Command, Boolean> commands, List<String> names) {
+        if (node.command != null && commands.put(node.command, Boolean.TRUE) == null) {
+            names.add(node.command.name);
+        }
+        for (Node child : node.children) {
+            collectCommands(child, commands, names);
+        }
+    }
+
+    /**
+     * Represents a registered command, along with how long it takes to run.
+     */
+    private static class Command {
+        private final String name;
+        private final Handler handler;
+        private final LatencyHistogram latency;
+
+        private Command(String name, Handler handler) {
+            this.name = name;
+            this.handler = handler;
+            this.latency = Metrics.histogram("command " + name);
+        }
+    }
+
+    /**
+     * Represents one character of the names in the tree.
+     * Children are kept in small sorted arrays, since each node only has a handful of them.
+     */
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Command command;
+        private Command only;
+        private boolean isShared;
+
+        private Node child(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(char key) {
+            Node child = child(key);
+            if (child != null) {
+                return child;
+            }
+
+            int index = 0;
+            while (index < keys.length && keys[index] < key) {
+                index++;
+            }
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(keys, index, keys, index + 1, keys.length - index - 1);
+            System.arraycopy(children, index, children, index + 1, children.length - index - 1);
+            child = new Node();
+            keys[index] = key;
+            children[index] = child;
+            return child;
+        }
+
+        /**
+         * Records that a name of the command passes through this node.
+         * The node keeps the command as its only one until a name of a different command passes through too.
+         */
+        private void reach(Command command) {
+            if (isShared || only == command) {
+                return;
+            }
+            if (only == null) {
+                only = command;
+            } else {
+                only = null;
+                isShared = true;
+            }
+        }
+    }
+}
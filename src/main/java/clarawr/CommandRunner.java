@@ -0,0 +1,103 @@
+package clarawr;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs commands on a single worker thread so that the window stays responsive while a command is processed.
+ * Commands run one at a time in the order they were submitted, and each response is handed back
+ * through the given executor, which for the GUI is the JavaFX Application Thread.
+ */
+class CommandRunner {
+    private final Clarawr clarawr;
+    private final Executor responseExecutor;
+    private final ExecutorService worker;
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /**
+     * Constructs a runner and starts its worker thread.
+     *
+     * @param clarawr The instance that processes the commands.
+     * @param responseExecutor Where each response is delivered, e.g. {@code Platform::runLater}.
+     */
+    CommandRunner(Clarawr clarawr, Executor responseExecutor) {
+        assert clarawr != null : "Clarawr instance cannot be null";
+        assert responseExecutor != null : "Response executor cannot be null";
+
+        this.clarawr = clarawr;
+        this.responseExecutor = responseExecutor;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "clarawr-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a command. Its response is passed to the callback once every earlier command has been answered.
+     *
+     * @param input The user input command to process.
+     * @param onResponse The callback that receives the response.
+     */
+    void submit(String input, Consumer<String> onResponse) {
+        assert input != null : "Input cannot be null";
+
+        pendingCount.incrementAndGet();
+        worker.execute(() -> run(input, onResponse));
+    }
+
+    /**
+     * Returns whether any submitted command has not been answered yet.
+     *
+     * @return true if a command is queued, running or waiting for its response to be delivered.
+     */
+    boolean isBusy() {
+        return pendingCount.get() > 0;
+    }
+
+    /**
+     * Stops accepting commands and waits for the queued ones to finish running.
+     */
+    void shutdown() {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs one command on the worker thread and delivers exactly one response for it,
+     * even if the command throws an error, so the window never waits for a response that never comes.
+     * The error itself is still thrown, to be reported by the worker thread.
+     */
+    private void run(String input, Consumer<String> onResponse) {
+        String response = "Error: RAWR something went badly wrong while running \"" + input + "\"";
+        try {
+            response = respond(input);
+        } finally {
+            String reply = response;
+            responseExecutor.execute(() -> {
+                pendingCount.decrementAndGet();
+                onResponse.accept(reply);
+            });
+        }
+    }
+
+    /**
+     * Returns the response to one command. A command that fails unexpectedly is reported
+     * instead of leaving the window waiting for a response that never comes.
+     */
+    private String respond(String input) {
+        try {
+            return clarawr.getResponse(input);
+        } catch (RuntimeException e) {
+            return "Error: I could not understand \"" + input + "\"";
+        }
+    }
+}
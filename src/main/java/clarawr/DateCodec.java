@@ -0,0 +1,114 @@
+package clarawr;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses and formats the two date-time layouts used by Clarawr.
+ * User input uses "yyyy-MM-dd HHmm" and displayed or saved text uses "MMM-dd-yyyy HH:mm".
+ * The formatters are built once and shared, and both layouts have a hand-written fast path that
+ * reads the digits directly. Anything the fast path does not recognise goes to the formatter,
+ * so unusual input is still parsed (or rejected) exactly as before.
+ */
+class DateCodec {
+    static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("MMM-dd-yyyy HH:mm");
+
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    /**
+     * Parses a date-time typed by the user, in the format "yyyy-MM-dd HHmm".
+     *
+     * @param text The text to parse.
+     * @return The parsed date-time.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid date-time.
+     */
+    static LocalDateTime parseInput(String text) {
+        assert text != null : "Date-time text cannot be null";
+
+        if (text.length() == 15 && text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == ' ') {
+            LocalDateTime dateTime = build(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                    digits(text, 11, 2), digits(text, 13, 2));
+            if (dateTime != null) {
+                return dateTime;
+            }
+        }
+        return LocalDateTime.parse(text, INPUT_FORMATTER);
+    }
+
+    /**
+     * Parses a date-time in the display format "MMM-dd-yyyy HH:mm".
+     *
+     * @param text The text to parse.
+     * @return The parsed date-time.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid date-time.
+     */
+    static LocalDateTime parseDisplay(String text) {
+        assert text != null : "Date-time text cannot be null";
+
+        if (text.length() == 17 && text.charAt(3) == '-' && text.charAt(6) == '-' && text.charAt(11) == ' '
+                && text.charAt(14) == ':') {
+            LocalDateTime dateTime = build(digits(text, 7, 4), month(text), digits(text, 4, 2),
+                    digits(text, 12, 2), digits(text, 15, 2));
+            if (dateTime != null) {
+                return dateTime;
+            }
+        }
+        return LocalDateTime.parse(text, DISPLAY_FORMATTER);
+    }
+
+    /**
+     * Formats a date-time in the display format "MMM-dd-yyyy HH:mm".
+     *
+     * @param dateTime The date-time to format.
+     * @return The formatted date-time.
+     */
+    static String format(LocalDateTime dateTime) {
+        return dateTime.format(DISPLAY_FORMATTER);
+    }
+
+    /**
+     * Reads a fixed number of decimal digits, or returns -1 if any character is not a digit.
+     */
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Reads the English month abbreviation at the start of the text, or returns -1 if there is none.
+     */
+    private static int month(String text) {
+        for (int i = 0; i < MONTHS.length; i++) {
+            if (text.startsWith(MONTHS[i])) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the date-time if every field is plainly in range, or returns null so the formatter decides.
+     * Borderline days such as 30 February are left to the formatter, which resolves them its own way.
+     */
+    private static LocalDateTime build(int year, int month, int day, int hour, int minute) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+        if (day > 28 && day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+}
@@ -0,0 +1,152 @@
+package clarawr;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Represents an index of deadlines and events by calendar date.
+ * A deadline sits in the bucket of its due date, so looking one up costs a sorted-map lookup plus the size of the result.
+ * Events are not bucketed, since one spanning years would need a bucket entry for every day it covers.
+ * They are found instead by an overlap search of the task list's {@link IntervalTree}, which holds each event once.
+ * An event takes place on a day if it starts before the day ends and ends after the day begins.
+ */
+class DateIndex {
+    private static final Comparator<Task> LIST_ORDER = Comparator.comparingLong(Task::getId);
+
+    private final TreeMap<LocalDate, List<Task>> buckets = new TreeMap<>();
+    private final IntervalTree events;
+
+    /**
+     * Constructs an index over the given tasks, in list order.
+     *
+     * @param tasks The tasks to index. Todos and events are ignored.
+     * @param events The events of the same tasks, kept up to date by the task list.
+     */
+    DateIndex(List<Task> tasks, IntervalTree events) {
+        assert tasks != null : "Tasks list cannot be null";
+        assert events != null : "Event tree cannot be null";
+
+        this.events = events;
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Indexes a task appended to the end of the list. Only deadlines are indexed here.
+     *
+     * @param task The task that was added.
+     */
+    void add(Task task) {
+        if (task instanceof Deadline) {
+            buckets.computeIfAbsent(getDate(task), key -> new ArrayList<>()).add(task);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task that was removed.
+     */
+    void remove(Task task) {
+        if (!(task instanceof Deadline)) {
+            return;
+        }
+        LocalDate date = getDate(task);
+        List<Task> bucket = buckets.get(date);
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == task) {
+                bucket.remove(i);
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            buckets.remove(date);
+        }
+    }
+
+    /**
+     * Removes several tasks from the index, passing over each affected bucket only once.
+     *
+     * @param tasks The tasks that were removed.
+     */
+    void removeAll(List<Task> tasks) {
+        Map<Task, Boolean> removed = new IdentityHashMap<>();
+        Set<LocalDate> dates = new HashSet<>();
+        for (Task task : tasks) {
+            if (task instanceof Deadline) {
+                removed.put(task, Boolean.TRUE);
+                dates.add(getDate(task));
+            }
+        }
+
+        for (LocalDate date : dates) {
+            List<Task> bucket = buckets.get(date);
+            if (bucket != null && bucket.removeIf(removed::containsKey) && bucket.isEmpty()) {
+                buckets.remove(date);
+            }
+        }
+    }
+
+    /**
+     * Returns the deadlines due and events taking place on the given date.
+     *
+     * @param date The date to look up.
+     * @return The matching tasks, in list order.
+     */
+    List<Task> getTasksOn(LocalDate date) {
+        List<Event> overlapping = events.getOverlapping(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        List<Task> bucket = buckets.getOrDefault(date, Collections.emptyList());
+
+        List<Task> result = new ArrayList<>(bucket.size() + overlapping.size());
+        result.addAll(bucket);
+        result.addAll(overlapping);
+        // Tasks are given increasing IDs as they are appended, so ID order is list order
+        result.sort(LIST_ORDER);
+        return result;
+    }
+
+    /**
+     * Returns the deadlines due and events taking place between two dates, inclusive.
+     * An event that covers several days in the range is only returned once.
+     *
+     * @param from The first date of the range.
+     * @param to The last date of the range.
+     * @return The matching tasks, ordered by the first day they fall on within the range, then in list order.
+     */
+    List<Task> getTasksBetween(LocalDate from, LocalDate to) {
+        assert !from.isAfter(to) : "Range start must not be after range end";
+
+        List<Task> result = new ArrayList<>();
+        for (List<Task> bucket : buckets.subMap(from, true, to, true).values()) {
+            result.addAll(bucket);
+        }
+        result.addAll(events.getOverlapping(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+
+        result.sort(Comparator.<Task, LocalDate>comparing(task -> firstDayWithin(task, from)).thenComparing(LIST_ORDER));
+        return result;
+    }
+
+    private static LocalDate firstDayWithin(Task task, LocalDate from) {
+        LocalDate date = getDate(task);
+        return date.isBefore(from) ? from : date;
+    }
+
+    private static LocalDate getDate(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getDeadline().toLocalDate();
+        }
+        return ((Event) task).getFrom().toLocalDate();
+    }
+}
@@ -1,7 +1,6 @@
 package clarawr;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a deadline task with a description and a deadline time.
@@ -10,7 +9,6 @@ import java.time.format.DateTimeFormatter;
 public class Deadline extends Task {
 
     private final LocalDateTime deadline;
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM-dd-yyyy HH:mm");
 
     /**
      * Constructs a Deadline task with the given description, deadline time, and completion status.
@@ -38,6 +36,19 @@ public class Deadline extends Task {
         return deadline;
     }
 
+    /**
+     * Returns a copy of the deadline task with the given completion status.
+     *
+     * @param isDone The completion status of the copy.
+     * @return The copy of the deadline task, with the same ID.
+     */
+    @Override
+    Task withDone(boolean isDone) {
+        Deadline copy = new Deadline(description, deadline, isDone);
+        copy.setId(id);
+        return copy;
+    }
+
     /**
      * Returns a string representation of the deadline task, including the description,
      * completion status, and deadline time.
@@ -46,7 +57,7 @@ public class Deadline extends Task {
      */
     @Override
     public String toString() {
-        return " [D]" + super.toString() + " by: " + deadline.format(formatter);
+        return " [D]" + super.toString() + " by: " + DateCodec.format(deadline);
     }
 
     /**
@@ -56,6 +67,6 @@ public class Deadline extends Task {
      */
     @Override
     public String toFileString() {
-        return "[D]" + super.toFileString() + " /by " + deadline.format(formatter);
+        return "[D]" + super.toFileString() + " /by " + DateCodec.format(deadline);
     }
 }
@@ -1,14 +1,10 @@
 package clarawr;
 
 import java.io.IOException;
-import java.util.Collections;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -24,17 +20,12 @@ public class DialogBox extends HBox {
 	@FXML
 	private ImageView displayPicture;
 
+	private boolean isReply;
+
 	/**
-	 * Constructs a DialogBox with the given text and image.
-	 *
-	 * @param text The text to be displayed in the dialog box.
-	 * @param img  The image representing the speaker.
+	 * Constructs an empty DialogBox, loading its layout once so that it can be reused for many messages.
 	 */
-	private DialogBox(String text, Image img) {
-
-		assert text != null && !text.isEmpty() : "Text cannot be null or empty";
-		assert img != null : "Image cannot be null";
-
+	DialogBox() {
 		try {
 			FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
 			fxmlLoader.setController(this);
@@ -43,20 +34,60 @@ public class DialogBox extends HBox {
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+	}
+
+	/**
+	 * Constructs a DialogBox with the given text and image.
+	 *
+	 * @param text The text to be displayed in the dialog box.
+	 * @param img  The image representing the speaker.
+	 */
+	private DialogBox(String text, Image img) {
+		this();
+		setMessage(text, img, false);
+	}
 
+	/**
+	 * Shows a message in this dialog box, replacing whatever it showed before.
+	 * Replies have the ImageView on the left and text on the right.
+	 * Each call is emitted as a {@link FlightEvents.DialogRendered} event when a flight recording is running.
+	 *
+	 * @param text The text to be displayed in the dialog box.
+	 * @param img The image representing the speaker.
+	 * @param isReply Whether the message is a reply from Clarawr.
+	 */
+	void setMessage(String text, Image img, boolean isReply) {
+		assert text != null && !text.isEmpty() : "Text cannot be null or empty";
+		assert img != null : "Image cannot be null";
+
+		FlightEvents.DialogRendered event = new FlightEvents.DialogRendered();
+		event.begin();
 		dialog.setText(text);
 		displayPicture.setImage(img);
+		if (isReply != this.isReply) {
+			flip(isReply);
+		}
+		if (event.shouldCommit()) {
+			event.textLength = text.length();
+			event.isReply = isReply;
+			event.commit();
+		}
 	}
 
 	/**
-	 * Flips the dialog box such that the ImageView is on the left and text on the right.
+	 * Puts the picture on the left for a reply or on the right for the user.
 	 */
-	private void flip() {
-		ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-		Collections.reverse(tmp);
-		getChildren().setAll(tmp);
-		setAlignment(Pos.TOP_LEFT);
-		dialog.getStyleClass().add("reply-label");
+	private void flip(boolean isReply) {
+		this.isReply = isReply;
+		if (isReply) {
+			getChildren().setAll(displayPicture, dialog);
+			setAlignment(Pos.TOP_LEFT);
+			dialog.getStyleClass().add("reply-label");
+		} else {
+			getChildren().setAll(dialog, displayPicture);
+			setAlignment(Pos.TOP_RIGHT);
+			dialog.getStyleClass().remove("reply-label");
+		}
 	}
 
 	/**
@@ -79,8 +110,8 @@ public class DialogBox extends HBox {
 	 * @return A {@code DialogBox} instance with the given text and image, flipped for Clarawr.
 	 */
 	public static DialogBox getClarawrDialog(String text, Image img) {
-		var db = new DialogBox(text, img);
-		db.flip();
+		var db = new DialogBox();
+		db.setMessage(text, img, true);
 		return db;
 	}
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package clarawr;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents an event task with a description, start and end times.
@@ -12,7 +11,6 @@ public class Event extends Task {
     protected LocalDateTime from;
     protected LocalDateTime to;
 
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM-dd-yyyy HH:mm");
 
     /**
      * Constructs an Event task with the given description, start and end times, and completion status.
@@ -53,6 +51,19 @@ public class Event extends Task {
         return to;
     }
 
+    /**
+     * Returns a copy of the event task with the given completion status.
+     *
+     * @param isDone The completion status of the copy.
+     * @return The copy of the event task, with the same ID.
+     */
+    @Override
+    Task withDone(boolean isDone) {
+        Event copy = new Event(description, from, to, isDone);
+        copy.setId(id);
+        return copy;
+    }
+
     /**
      * Returns a string representation of the event task, including the description,
      * completion status, and start and end times.
@@ -61,8 +72,8 @@ public class Event extends Task {
      */
     @Override
     public String toString() {
-        return " [E]" + super.toString() + " from: " + from.format(formatter) + " to: " +
-                to.format(formatter) ;
+        return " [E]" + super.toString() + " from: " + DateCodec.format(from) + " to: " +
+                DateCodec.format(to) ;
     }
 
     /**
@@ -72,7 +83,7 @@ public class Event extends Task {
      */
     @Override
     public String toFileString() {
-        return "[E]" + super.toFileString() + " /from " + from.format(formatter) + " /to " +
-                to.format(formatter);
+        return "[E]" + super.toFileString() + " /from " + DateCodec.format(from) + " /to " +
+                DateCodec.format(to);
     }
 }
@@ -0,0 +1,99 @@
+package clarawr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Holds the Java Flight Recorder events Clarawr emits, so a recording of a real session,
+ * read with {@code jfr print --categories Clarawr}, shows which commands, saves and loads were slow.
+ * <p>
+ * Each event is created and begun before the work and committed after it, with its fields only filled in
+ * once {@link Event#shouldCommit()} says the event is wanted. While no recording is running, JFR leaves
+ * the event classes uninstrumented, so {@code begin} and {@code commit} do nothing, {@code shouldCommit}
+ * is false and the unused event object is optimised away, which makes the events free when recording is off.
+ */
+final class FlightEvents {
+    private FlightEvents() {
+    }
+
+    /**
+     * Records one run of a command.
+     */
+    @Name("clarawr.CommandExecuted")
+    @Label("Command Executed")
+    @Category({ "Clarawr", "Commands" })
+    @Description("A command typed by the user, from finding its handler to returning the response")
+    static final class CommandExecuted extends Event {
+        @Label("Command")
+        String command;
+
+        @Label("Argument Length")
+        @Description("Number of characters typed after the command name")
+        int argumentLength;
+
+        @Label("Outcome")
+        @Description("ok, or error if the command was rejected")
+        String outcome;
+    }
+
+    /**
+     * Records one write of tasks to disk: either a snapshot of the whole list or a group of journal records.
+     */
+    @Name("clarawr.TasksSaved")
+    @Label("Tasks Saved")
+    @Category({ "Clarawr", "Storage" })
+    @Description("A snapshot written and synced, or a group of journal records appended and synced")
+    static final class TasksSaved extends Event {
+        @Label("Target")
+        @Description("snapshot or journal")
+        String target;
+
+        @Label("Task Count")
+        @Description("Tasks in the snapshot, or changes in the journal group")
+        int taskCount;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Succeeded")
+        boolean hasSucceeded;
+    }
+
+    /**
+     * Records one load of a task list from disk.
+     */
+    @Name("clarawr.TasksLoaded")
+    @Label("Tasks Loaded")
+    @Category({ "Clarawr", "Storage" })
+    @Description("A task list mapped from its snapshot, with the journal replayed on top")
+    static final class TasksLoaded extends Event {
+        @Label("Task Count")
+        int taskCount;
+
+        @Label("Bytes")
+        @Description("Size of the snapshot and journal files")
+        @DataAmount
+        long bytes;
+    }
+
+    /**
+     * Records one message being shown in a dialog box of the transcript.
+     */
+    @Name("clarawr.DialogRendered")
+    @Label("Dialog Rendered")
+    @Category({ "Clarawr", "GUI" })
+    @Description("A message set into a dialog box, when it is added or scrolled into view")
+    static final class DialogRendered extends Event {
+        @Label("Text Length")
+        int textLength;
+
+        @Label("Reply")
+        @Description("Whether the message came from Clarawr rather than the user")
+        boolean isReply;
+    }
+}
@@ -0,0 +1,233 @@
+package clarawr;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes journal records on a background thread so that callers never wait on disk.
+ * Records that arrive close together are committed as one group with a single sync,
+ * waiting at most the configured delay after the first record of the group.
+ * A write that fails is held as pending until it is taken, and until then every flush throws it,
+ * so a failure is never lost just because nobody was waiting when it happened.
+ */
+class GroupCommitWriter {
+    private static final int MAX_GROUP_SIZE = 4096;
+    private static final LatencyHistogram COMMIT_LATENCY = Metrics.histogram("save journal");
+
+    private final Journal journal;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private final Thread thread;
+
+    /**
+     * Constructs a writer for the given journal and starts its background thread.
+     *
+     * @param journal The journal the records are written to.
+     * @param maxDelayMillis The longest time a record may wait for others to join its group.
+     */
+    GroupCommitWriter(Journal journal, long maxDelayMillis) {
+        assert journal != null : "Journal cannot be null";
+        assert maxDelayMillis >= 0 : "Flush delay cannot be negative";
+
+        this.journal = journal;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+
+        this.thread = new Thread(this::run, "clarawr-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a record to be appended to the journal.
+     *
+     * @param sequence The sequence number of the record.
+     * @param op The operation code of the record.
+     * @param payload The encoded operation argument.
+     */
+    void submitRecord(long sequence, char op, byte[] payload) {
+        queue.add(new Entry(sequence, op, payload, null, null, null));
+    }
+
+    /**
+     * Queues a rotation of the journal. Every record queued before it is moved to the target file,
+     * after which the given action runs on the writer thread.
+     *
+     * @param target The file that receives the current records.
+     * @param afterRotation The action to run once the records have been moved.
+     */
+    void submitRotation(File target, Runnable afterRotation) {
+        queue.add(new Entry(0, ' ', null, target, afterRotation, null));
+    }
+
+    /**
+     * Waits until every record queued so far has been forced to disk.
+     *
+     * @throws IOException If a write failed and the failure has not been taken yet.
+     */
+    void flush() throws IOException {
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        queue.add(new Entry(0, ' ', null, null, null, barrier));
+
+        try {
+            barrier.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * Returns the first write that failed since the last one taken, and clears it.
+     * Does not wait for queued records.
+     *
+     * @return The failure, or null if every write so far succeeded.
+     */
+    IOException takeFailure() {
+        return failure.getAndSet(null);
+    }
+
+    /**
+     * Writes out every queued record, then stops the background thread and closes the journal.
+     * No records may be submitted afterwards.
+     *
+     * @throws IOException If a write failed and the failure has not been taken yet, or the journal cannot be closed.
+     */
+    void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            journal.close();
+        }
+    }
+
+    private void run() {
+        List<Entry> group = new ArrayList<>();
+        while (true) {
+            try {
+                Entry first = queue.take();
+                group.add(first);
+
+                // Someone waiting on a barrier should not also wait for the delay to run out
+                boolean hasBarrier = first.barrier != null;
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (!hasBarrier && group.size() < MAX_GROUP_SIZE) {
+                    Entry next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    hasBarrier = next.barrier != null;
+                }
+                queue.drainTo(group, MAX_GROUP_SIZE - group.size());
+
+                commit(group);
+                group.clear();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Appends and syncs a group of records. The time taken, and whether any part failed,
+     * is recorded in {@link Metrics} as "save journal" and as a {@link FlightEvents.TasksSaved} event.
+     * Flush barriers in the group fail with the pending failure, if there is one.
+     */
+    private void commit(List<Entry> group) {
+        FlightEvents.TasksSaved event = new FlightEvents.TasksSaved();
+        event.begin();
+        long start = System.nanoTime();
+        boolean hasFailed = false;
+        for (Entry entry : group) {
+            try {
+                if (entry.payload != null) {
+                    journal.append(entry.sequence, entry.op, entry.payload);
+                } else if (entry.rotationTarget != null) {
+                    rotate(entry);
+                }
+            } catch (IOException e) {
+                hasFailed = true;
+                failure.compareAndSet(null, e);
+            }
+        }
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            hasFailed = true;
+            failure.compareAndSet(null, e);
+        }
+
+        COMMIT_LATENCY.recordSince(start, hasFailed);
+        if (event.shouldCommit()) {
+            event.target = "journal";
+            for (Entry entry : group) {
+                if (entry.payload != null) {
+                    event.taskCount++;
+                    event.bytes += Journal.RECORD_OVERHEAD + entry.payload.length;
+                }
+            }
+            event.hasSucceeded = !hasFailed;
+            event.commit();
+        }
+
+        IOException pending = failure.get();
+        for (Entry entry : group) {
+            if (entry.barrier != null && pending != null) {
+                entry.barrier.completeExceptionally(pending);
+            } else if (entry.barrier != null) {
+                entry.barrier.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Moves the journal aside and runs the follow-up action even if the move fails.
+     * The snapshot written by that action records the sequence number it covers,
+     * so records that stay behind in the journal are skipped on the next load.
+     */
+    private void rotate(Entry entry) throws IOException {
+        try {
+            journal.rotateTo(entry.rotationTarget);
+        } finally {
+            entry.afterRotation.run();
+        }
+    }
+
+    /**
+     * Represents one queued item: a record, a rotation or a flush barrier.
+     */
+    private static class Entry {
+        private final long sequence;
+        private final char op;
+        private final byte[] payload;
+        private final File rotationTarget;
+        private final Runnable afterRotation;
+        private final CompletableFuture<Void> barrier;
+
+        private Entry(long sequence, char op, byte[] payload, File rotationTarget,
+                Runnable afterRotation, CompletableFuture<Void> barrier) {
+            this.sequence = sequence;
+            this.op = op;
+            this.payload = payload;
+            this.rotationTarget = rotationTarget;
+            this.afterRotation = afterRotation;
+            this.barrier = barrier;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package clarawr;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Represents the events of a task list, kept in a balanced search tree ordered by start time.
+ * Each node also records the latest end time in its subtree, so a search for the events that overlap
+ * a stretch of time can skip every subtree that ends before the stretch begins, and stop as soon as
+ * it reaches events that start after the stretch ends. Events with the same start are ordered by ID.
+ * Two events overlap when each starts before the other ends, so one ending just as the next starts is not a clash.
+ */
+class IntervalTree {
+    private Node root;
+
+    /**
+     * Constructs a tree of the events among the given tasks.
+     *
+     * @param tasks The tasks to look through. Todos and deadlines are left out.
+     */
+    IntervalTree(List<Task> tasks) {
+        assert tasks != null : "Tasks list cannot be null";
+
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Adds a task that was added to the list. Todos and deadlines are ignored.
+     *
+     * @param task The task to add.
+     */
+    void add(Task task) {
+        if (task instanceof Event) {
+            root = insert(root, (Event) task);
+        }
+    }
+
+    /**
+     * Removes a task that was deleted from the list.
+     *
+     * @param task The task to remove.
+     */
+    void remove(Task task) {
+        if (task instanceof Event) {
+            root = delete(root, (Event) task);
+        }
+    }
+
+    /**
+     * Returns the events that overlap a stretch of time, that is, those that start before it ends and end after it starts.
+     *
+     * @param from The start of the stretch.
+     * @param to The end of the stretch.
+     * @return The overlapping events, in order of start time.
+     */
+    List<Event> getOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Event> result = new ArrayList<>();
+        collectOverlapping(root, from, to, result);
+        return result;
+    }
+
+    private static void collectOverlapping(Node node, LocalDateTime from, LocalDateTime to, List<Event> result) {
+        if (node == null || !node.maxTo.isAfter(from)) {
+            return;
+        }
+        collectOverlapping(node.left, from, to, result);
+        if (!node.event.getFrom().isBefore(to)) {
+            // This event and every later one start too late
+            return;
+        }
+        if (node.event.getTo().isAfter(from)) {
+            result.add(node.event);
+        }
+        collectOverlapping(node.right, from, to, result);
+    }
+
+    /**
+     * Finds every pair of overlapping events in one sweep through the events in order of start time.
+     * The events that have started but not ended are kept in a heap ordered by end time, so each event
+     * costs a logarithmic step to join and leave it, on top of one step per clash it is part of.
+     *
+     * @return The clashing pairs, each with the earlier-starting event first, ordered by the start of the later one.
+     */
+    List<Event[]> findConflicts() {
+        List<Event> events = new ArrayList<>();
+        collectAll(root, events);
+
+        PriorityQueue<Event> ongoing = new PriorityQueue<>(Comparator.comparing(Event::getTo));
+        List<Event[]> conflicts = new ArrayList<>();
+        for (Event event : events) {
+            while (!ongoing.isEmpty() && !ongoing.peek().getTo().isAfter(event.getFrom())) {
+                ongoing.poll();
+            }
+            // Every ongoing event started no later than this one and ends after it starts, so each one clashes with it
+            for (Event earlier : ongoing) {
+                conflicts.add(new Event[] { earlier, event });
+            }
+            ongoing.add(event);
+        }
+        conflicts.sort(Comparator.<Event[], LocalDateTime>comparing(pair -> pair[1].getFrom())
+                .thenComparingLong(pair -> pair[1].getId())
+                .thenComparing(pair -> pair[0].getFrom())
+                .thenComparingLong(pair -> pair[0].getId()));
+        return conflicts;
+    }
+
+    private static void collectAll(Node node, List<Event> result) {
+        if (node == null) {
+            return;
+        }
+        collectAll(node.left, result);
+        result.add(node.event);
+        collectAll(node.right, result);
+    }
+
+    private static int compare(Event a, Event b) {
+        int byStart = a.getFrom().compareTo(b.getFrom());
+        return byStart != 0 ? byStart : Long.compare(a.getId(), b.getId());
+    }
+
+    private static Node insert(Node node, Event event) {
+        if (node == null) {
+            return new Node(event);
+        }
+        if (compare(event, node.event) < 0) {
+            node.left = insert(node.left, event);
+        } else {
+            node.right = insert(node.right, event);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, Event event) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(event, node.event);
+        if (comparison < 0) {
+            node.left = delete(node.left, event);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, event);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.event = successor.event;
+            node.right = delete(node.right, successor.event);
+        }
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static Node balance(Node node) {
+        int difference = height(node.left) - height(node.right);
+        if (difference > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (difference < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Represents one event in the tree, with the height and latest end time of its subtree.
+     */
+    private static class Node {
+        private Event event;
+        private Node left;
+        private Node right;
+        private int height;
+        private LocalDateTime maxTo;
+
+        private Node(Event event) {
+            this.event = event;
+            update();
+        }
+
+        private void update() {
+            height = 1 + Math.max(IntervalTree.height(left), IntervalTree.height(right));
+            maxTo = event.getTo();
+            if (left != null && left.maxTo.isAfter(maxTo)) {
+                maxTo = left.maxTo;
+            }
+            if (right != null && right.maxTo.isAfter(maxTo)) {
+                maxTo = right.maxTo;
+            }
+        }
+    }
+}
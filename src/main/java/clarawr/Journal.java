@@ -0,0 +1,314 @@
+package clarawr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents an append-only log of task list mutations.
+ * Each mutation is written as a single binary record of a sequence number, an operation code and
+ * its payload, so recording a change costs O(1) disk I/O no matter how many tasks there are.
+ * A change to many tasks at once is a single record holding all of their indexes.
+ * The log is replayed on top of the latest snapshot when tasks are loaded.
+ * Journals written in the older one-line-per-record text format can still be replayed.
+ */
+class Journal {
+    static final char ADD = 'A';
+    static final char MARK = 'M';
+    static final char UNMARK = 'U';
+    static final char DELETE = 'D';
+    static final char MARK_ALL = 'm';
+    static final char UNMARK_ALL = 'u';
+    static final char DELETE_ALL = 'd';
+    // The sequence number and operation code written before each payload
+    static final int RECORD_OVERHEAD = Long.BYTES + 1;
+
+    private final File file;
+    private FileOutputStream output;
+    private DataOutputStream writer;
+
+    /**
+     * Constructs a journal backed by the given file.
+     * The file is only created once the first record is appended.
+     *
+     * @param file The file the records are appended to.
+     */
+    Journal(File file) {
+        assert file != null : "Journal file cannot be null";
+
+        this.file = file;
+    }
+
+    /**
+     * Appends a single record to the end of the journal.
+     * The record is buffered until the next call to {@link #sync()}.
+     *
+     * @param sequence The sequence number of the record.
+     * @param op The operation code of the record.
+     * @param payload The encoded operation argument: a task, a task index, or a count followed by that many indexes.
+     * @throws IOException If the record cannot be written.
+     */
+    void append(long sequence, char op, byte[] payload) throws IOException {
+        if (writer == null) {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            boolean isNew = file.length() == 0;
+            output = new FileOutputStream(file, true);
+            writer = new DataOutputStream(new BufferedOutputStream(output));
+            if (isNew) {
+                TaskCodec.writeHeader(writer);
+            }
+        }
+
+        writer.writeLong(sequence);
+        writer.writeByte(op);
+        writer.write(payload);
+    }
+
+    /**
+     * Forces every buffered record to disk.
+     *
+     * @throws IOException If the records cannot be written.
+     */
+    void sync() throws IOException {
+        if (writer != null) {
+            writer.flush();
+            output.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Moves the current records out of the way so that a snapshot can absorb them.
+     * If the target already holds records from an earlier, unfinished compaction,
+     * the current records are appended to it so that nothing is lost.
+     *
+     * @param target The file that receives the current records.
+     * @throws IOException If the records cannot be moved.
+     */
+    void rotateTo(File target) throws IOException {
+        close();
+
+        if (!file.exists()) {
+            return;
+        }
+        if (target.exists()) {
+            byte[] records = Files.readAllBytes(file.toPath());
+            int start = 0;
+            if (TaskCodec.isBinary(file) && TaskCodec.isBinary(target)) {
+                start = TaskCodec.HEADER_LENGTH; // The target already starts with a header
+            }
+            Files.write(target.toPath(), Arrays.copyOfRange(records, start, records.length),
+                    StandardOpenOption.APPEND);
+            Files.delete(file.toPath());
+        } else {
+            Files.move(file.toPath(), target.toPath());
+        }
+    }
+
+    /**
+     * Closes the underlying writer. A later append reopens the file.
+     *
+     * @throws IOException If the writer cannot be closed.
+     */
+    void close() throws IOException {
+        if (writer != null) {
+            sync();
+            writer.close();
+            writer = null;
+            output = null;
+        }
+    }
+
+    /**
+     * Applies the records of a journal file to a list of tasks, in order.
+     * Records at or below the given sequence number are already part of the snapshot and are skipped.
+     * Replay stops at the first incomplete or corrupt record, since every later record depends on it,
+     * and likewise at a gap in the sequence numbers, which means the records in between were lost,
+     * for example because an older snapshot had to be loaded in place of a damaged one.
+     *
+     * @param file The journal file to replay.
+     * @param tasks The tasks to apply the records to.
+     * @param afterSequence The sequence number already covered by the snapshot.
+     * @return The highest sequence number seen, the number of records read and the largest task ID added,
+     *         in that order.
+     */
+    static long[] replay(File file, List<Task> tasks, long afterSequence) {
+        if (!file.exists()) {
+            return new long[] { afterSequence, 0, 0 };
+        }
+        if (!TaskCodec.isBinary(file)) {
+            return replayText(file, tasks, afterSequence);
+        }
+
+        long lastSequence = afterSequence;
+        int count = 0;
+        long largestId = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte version = TaskCodec.readHeader(in);
+            while (true) {
+                long recordSequence;
+                try {
+                    recordSequence = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (recordSequence > afterSequence && recordSequence != lastSequence + 1) {
+                    System.out.println("Warning: Some saved changes are missing. Ignoring the changes after them.");
+                    break;
+                }
+
+                char op = (char) in.readByte();
+                if (op == ADD) {
+                    Task task = TaskCodec.readTask(in, version);
+                    if (recordSequence > afterSequence) {
+                        tasks.add(task);
+                        largestId = Math.max(largestId, task.getId());
+                    }
+                } else if (op == MARK_ALL || op == UNMARK_ALL || op == DELETE_ALL) {
+                    int[] indexes = new int[in.readInt()];
+                    for (int i = 0; i < indexes.length; i++) {
+                        indexes[i] = in.readInt();
+                    }
+                    if (recordSequence > afterSequence) {
+                        applyIndexesRecord(op, indexes, tasks);
+                    }
+                } else {
+                    int index = in.readInt();
+                    if (recordSequence > afterSequence) {
+                        applyIndexRecord(op, index, tasks);
+                    }
+                }
+                lastSequence = Math.max(lastSequence, recordSequence);
+                count++;
+            }
+        } catch (EOFException e) {
+            // The last record was cut short by a crash; everything before it still counts
+        } catch (Exception e) {
+            System.out.println("Warning: Corrupt journal record detected. Ignoring the rest of the journal.");
+        }
+        return new long[] { lastSequence, count, largestId };
+    }
+
+    /**
+     * Replays a journal written in the older text format, one "sequence op payload" line per record.
+     */
+    private static long[] replayText(File file, List<Task> tasks, long afterSequence) {
+        long lastSequence = afterSequence;
+        int count = 0;
+
+        String content;
+        try {
+            content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Warning: Unable to read task journal. Recent changes may be missing.");
+            return new long[] { lastSequence, count, 0 };
+        }
+
+        int start = 0;
+        int end;
+        // A record only counts once its line terminator made it to disk
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            String line = content.substring(start, end).stripTrailing();
+            start = end + 1;
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            try {
+                int firstSpace = line.indexOf(' ');
+                long recordSequence = Long.parseLong(line.substring(0, firstSpace));
+                char op = line.charAt(firstSpace + 1);
+                String payload = line.substring(firstSpace + 3);
+
+                if (recordSequence > afterSequence) {
+                    if (op == ADD) {
+                        tasks.add(Parser.parseTask(payload));
+                    } else {
+                        applyIndexRecord(op, Integer.parseInt(payload), tasks);
+                    }
+                }
+                lastSequence = Math.max(lastSequence, recordSequence);
+                count++;
+            } catch (Exception e) {
+                System.out.println("Warning: Corrupt journal record detected. Ignoring the rest of the journal.");
+                break;
+            }
+        }
+        return new long[] { lastSequence, count, 0 };
+    }
+
+    private static void applyIndexRecord(char op, int index, List<Task> tasks) throws IOException {
+        switch (op) {
+        case MARK:
+            tasks.get(index).markAsDone();
+            break;
+        case UNMARK:
+            tasks.get(index).markUndone();
+            break;
+        case DELETE:
+            tasks.remove(index);
+            break;
+        default:
+            throw new IOException("Unknown journal operation: " + op);
+        }
+    }
+
+    private static void applyIndexesRecord(char op, int[] indexes, List<Task> tasks) throws IOException {
+        switch (op) {
+        case MARK_ALL:
+            for (int index : indexes) {
+                tasks.get(index).markAsDone();
+            }
+            break;
+        case UNMARK_ALL:
+            for (int index : indexes) {
+                tasks.get(index).markUndone();
+            }
+            break;
+        case DELETE_ALL:
+            removeAll(indexes, tasks);
+            break;
+        default:
+            throw new IOException("Unknown journal operation: " + op);
+        }
+    }
+
+    /**
+     * Removes the tasks at the given increasing indexes, moving every later task only once.
+     */
+    private static void removeAll(int[] indexes, List<Task> tasks) {
+        if (indexes.length == 0) {
+            return;
+        }
+        if (tasks instanceof MappedTaskList) {
+            // Moving tasks through set would decode them
+            ((MappedTaskList) tasks).removeAll(indexes);
+            return;
+        }
+
+        int write = indexes[0];
+        int next = 0;
+        for (int read = indexes[0]; read < tasks.size(); read++) {
+            if (next < indexes.length && indexes[next] == read) {
+                next++;
+            } else {
+                tasks.set(write++, tasks.get(read));
+            }
+        }
+        tasks.subList(write, tasks.size()).clear();
+    }
+}
@@ -0,0 +1,220 @@
+package clarawr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Represents an inverted index from the words in task descriptions to the tasks containing them.
+ * Words are posted with task IDs, which increase along the list, so posting lists stay sorted without any extra work
+ * and a task's position is found by a logarithmic search of the task tree for its ID.
+ * A removed task is not searched out of its posting lists. Each list only counts its removed IDs, and is swept
+ * of them once they make up half of it, so a removal costs logarithmic time per word once spread over the sweeps.
+ */
+class KeywordIndex {
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+
+    /**
+     * Constructs an index over the given tasks, in list order.
+     *
+     * @param tasks The tasks to index.
+     */
+    KeywordIndex(List<Task> tasks) {
+        assert tasks != null : "Tasks list cannot be null";
+
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Indexes a task appended to the end of the list.
+     *
+     * @param task The task that was added.
+     */
+    void add(Task task) {
+        for (String token : tokenize(task.getDescription())) {
+            postings.computeIfAbsent(token, key -> new PostingList()).add(task.getId());
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task that was removed.
+     * @param tasks The list after the removal, against which posting lists are swept of removed IDs.
+     */
+    void remove(Task task, TaskTree tasks) {
+        for (String token : tokenize(task.getDescription())) {
+            PostingList list = postings.get(token);
+            if (list != null && list.remove(tasks) && list.size == 0) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Removes several tasks from the index.
+     *
+     * @param removed The tasks that were removed.
+     * @param tasks The list after the removal, against which posting lists are swept of removed IDs.
+     */
+    void removeAll(List<Task> removed, TaskTree tasks) {
+        for (Task task : removed) {
+            remove(task, tasks);
+        }
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain a word starting with every word of the query.
+     *
+     * @param query The words to search for. Case-insensitive.
+     * @param tasks The list the index is kept for, used to find the positions of the matching IDs.
+     * @return The zero-based positions of the matching tasks, in list order.
+     */
+    int[] find(String query, TaskTree tasks) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return new int[0];
+        }
+
+        long[] matches = null;
+        for (String word : words) {
+            long[] candidates = prefixMatches(word);
+            matches = matches == null ? candidates : intersect(matches, candidates);
+            if (matches.length == 0) {
+                break;
+            }
+        }
+
+        // Removed IDs that have not been swept yet are no longer in the list
+        int[] positions = new int[matches.length];
+        int length = 0;
+        for (long id : matches) {
+            int position = tasks.indexOfId(id);
+            if (position >= 0) {
+                positions[length++] = position;
+            }
+        }
+        return Arrays.copyOf(positions, length);
+    }
+
+    /**
+     * Returns the sorted IDs of every task containing a word that starts with the given prefix.
+     */
+    private long[] prefixMatches(String prefix) {
+        NavigableMap<String, PostingList> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.isEmpty()) {
+            return new long[0];
+        }
+        if (range.size() == 1) {
+            return range.firstEntry().getValue().toArray();
+        }
+
+        int total = 0;
+        for (PostingList list : range.values()) {
+            total += list.size;
+        }
+        long[] union = new long[total];
+        int length = 0;
+        for (PostingList list : range.values()) {
+            System.arraycopy(list.ids, 0, union, length, list.size);
+            length += list.size;
+        }
+        Arrays.sort(union);
+
+        // A task with several words sharing the prefix appears once per word
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || union[i] != union[i - 1]) {
+                union[distinct++] = union[i];
+            }
+        }
+        return Arrays.copyOf(union, distinct);
+    }
+
+    private static long[] intersect(long[] first, long[] second) {
+        long[] result = new long[Math.min(first.length, second.length)];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[length++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Splits text into distinct lower-case words made of letters and digits.
+     *
+     * @param text The text to split.
+     * @return The distinct words in the text, in order of first appearance.
+     */
+    static List<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Represents the sorted IDs of the tasks containing one word, some of which may have been removed.
+     */
+    private static class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+        private int removed;
+
+        private void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * Counts one of the IDs as removed, sweeping out every removed ID once they make up half the list.
+         *
+         * @return Whether the list was swept.
+         */
+        private boolean remove(TaskTree tasks) {
+            removed++;
+            if (removed * 2 < size) {
+                return false;
+            }
+            int write = 0;
+            for (int read = 0; read < size; read++) {
+                if (tasks.indexOfId(ids[read]) >= 0) {
+                    ids[write++] = ids[read];
+                }
+            }
+            size = write;
+            removed = 0;
+            return true;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package clarawr;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents how long an operation took each time it ran, along with how often it failed.
+ * Durations are counted in a fixed set of buckets that grow with the duration: each power of two nanoseconds
+ * is split into eight buckets, so a percentile read back is within an eighth of the true value,
+ * from a few nanoseconds up to centuries, in under 500 counters.
+ * Recording is a few atomic increments with no locking or allocation, so it can be done from any thread on every call.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Constructs an empty histogram.
+     *
+     * @param name What the histogram measures, e.g. "command list".
+     */
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one run of the operation.
+     *
+     * @param nanos How long it took, in nanoseconds.
+     * @param isError Whether it failed.
+     */
+    void record(long nanos, boolean isError) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        if (isError) {
+            errorCount.incrementAndGet();
+        }
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Records one run of the operation that started at the given time and has just ended.
+     *
+     * @param startNanos The {@link System#nanoTime()} when it started.
+     * @param isError Whether it failed.
+     */
+    void recordSince(long startNanos, boolean isError) {
+        record(System.nanoTime() - startNanos, isError);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value that falls in a bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Returns what the histogram measures.
+     *
+     * @return The name given when it was constructed.
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns how many runs were recorded.
+     *
+     * @return The number of runs, including failed ones.
+     */
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns how many of the recorded runs failed.
+     *
+     * @return The number of failed runs.
+     */
+    long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * Returns the longest recorded run.
+     *
+     * @return The longest duration, in nanoseconds, or 0 if nothing was recorded.
+     */
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the duration that the given share of runs took at most.
+     * Runs recorded while this is read may or may not be counted.
+     *
+     * @param percentile The share of runs, from 0 to 100, e.g. 99 for the 99th percentile.
+     * @return The duration in nanoseconds, rounded up to the end of its bucket but never above the maximum,
+     *         or 0 if nothing was recorded.
+     */
+    long getPercentileNanos(double percentile) {
+        assert percentile >= 0 && percentile <= 100 : "Percentile must be between 0 and 100";
+
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+}
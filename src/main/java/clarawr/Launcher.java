@@ -1,21 +1,31 @@
 package clarawr;
 
+import java.util.Arrays;
+
 import javafx.application.Application;
 
 /**
  * A launcher class to work around classpath issues when running a JavaFX application.
- * This class serves as the entry point to start the application by calling {@link Main}.
+ * This class serves as the entry point to start the application by calling {@link Main},
+ * or {@link BatchMode} when the first argument is {@code --batch}.
+ * Either way, {@code --home DIR} chooses the folder where the task lists are kept.
  */
 public class Launcher {
 
 	/**
-	 * The main method that launches the JavaFX application.
+	 * The main method that launches the JavaFX application, or runs a script headlessly.
 	 *
 	 * @param args Command-line arguments passed to the application.
 	 */
 	public static void main(String[] args) {
 		assert args != null : "Command-line arguments should not be null";
-		assert args.length == 0 : "Command-line arguments should be provided if required";
+
+		args = Workspace.applyHomeOption(args);
+		Metrics.startDumpingIfConfigured();
+		if (args.length > 0 && args[0].equals("--batch")) {
+			BatchMode.runScript(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 
 		Application.launch(Main.class, args);
 	}
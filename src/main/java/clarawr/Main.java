@@ -16,6 +16,7 @@ import javafx.stage.Stage;
 public class Main extends Application {
 
 	private final Clarawr clarawr = new Clarawr();
+	private MainWindow mainWindow;
 
 	/**
 	 * Starts the JavaFX application by setting up the primary stage.
@@ -43,11 +44,29 @@ public class Main extends Application {
 			Scene scene = new Scene(ap);
 
 			stage.setScene(scene);
-			fxmlLoader.<MainWindow>getController().setClarawr(clarawr);
+			mainWindow = fxmlLoader.getController();
+			mainWindow.setClarawr(clarawr);
 
 			stage.show();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Lets queued commands finish and writes out any pending changes before the application closes,
+	 * including when the window is closed without typing bye.
+	 */
+	@Override
+	public void stop() {
+		if (mainWindow != null) {
+			mainWindow.shutdown();
+		}
+		try {
+			clarawr.flush();
+		} catch (ClarawrException e) {
+			// The window is already gone, so the console is the only place left to report it
+			System.err.println(e.getMessage());
+		}
+	}
 }
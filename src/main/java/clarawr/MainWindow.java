@@ -1,46 +1,71 @@
 package clarawr;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 
 /**
  * Controller for the main GUI.
  * Handles user input and display dialog boxes for the user and Clarawr.
  */
 public class MainWindow extends AnchorPane {
+	private static final int BUSY_DELAY_MILLIS = 150;
+	private static final LatencyHistogram RENDER_LATENCY = Metrics.histogram("render message");
+
 	@FXML
-	private ScrollPane scrollPane;
-	@FXML
-	private VBox dialogContainer;
+	private ListView<Message> transcriptView;
 	@FXML
 	private TextField userInput;
 	@FXML
 	private Button sendButton;
+	@FXML
+	private ProgressIndicator busyIndicator;
 
 	private Clarawr clarawr;
+	private CommandRunner commandRunner;
+	private Transcript transcript;
+	private final PauseTransition busyDelay = new PauseTransition(Duration.millis(BUSY_DELAY_MILLIS));
 
 	private final Image userImage = new Image(this.getClass().getResourceAsStream("/images/tarzanBoy.png"));
 	private final Image clarawrImage = new Image(this.getClass().getResourceAsStream("/images/simbaLion.jpg"));
 
 	/**
 	 * Initializes the MainWindow.
-	 * Binds the vertical scroll property of the ScrollPane to the height of the dialog container,
-	 * ensuring that the latest messages are always visible.
+	 * The transcript is a virtualized list, so only the messages in view have cells,
+	 * and the oldest messages are dropped from it once it grows past its capacity.
 	 */
 	@FXML
 	public void initialize() {
-		assert scrollPane != null : "ScrollPane is not initialized";
-		assert dialogContainer != null : "DialogContainer is not initialized";
+		assert transcriptView != null : "TranscriptView is not initialized";
 		assert userInput != null : "UserInput is not initialized";
 		assert sendButton != null : "SendButton is not initialized";
+		assert busyIndicator != null : "BusyIndicator is not initialized";
+
+		// Only commands that are still running after a moment show the indicator, so quick ones do not flicker
+		busyIndicator.setVisible(false);
+		busyDelay.setOnFinished(event -> busyIndicator.setVisible(commandRunner.isBusy()));
 
-		scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+		transcript = Transcript.withTemporaryHistory(transcriptView.getItems());
+		transcriptView.setCellFactory(list -> new MessageCell(list, userImage, clarawrImage, this::showOlderMessages));
+		transcriptView.setFocusTraversable(false);
+
+		// Tab completes the command name instead of moving the focus away
+		userInput.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+			if (event.getCode() == KeyCode.TAB) {
+				completeCommand();
+				event.consume();
+			}
+		});
 	}
 
 	/**
@@ -52,13 +77,28 @@ public class MainWindow extends AnchorPane {
 
 		assert c != null : "Clarawr instance is not initialized";
 		clarawr = c;
+		commandRunner = new CommandRunner(c, Platform::runLater);
+		c.startReminders(reminder -> Platform.runLater(() -> showMessage(new Message(false, reminder))));
+	}
+
+	/**
+	 * Stops the reminders and waits for the commands that are still queued to finish,
+	 * so that their changes can be saved on exit.
+	 */
+	public void shutdown() {
+		if (clarawr != null) {
+			clarawr.stopReminders();
+		}
+		if (commandRunner != null) {
+			commandRunner.shutdown();
+		}
 	}
 
 	/**
-	 * Handles user input by creating two dialog boxes:
-	 * - One for the user's input
-	 * - One for Clarawr's response
-	 * The dialog boxes are appended to the dialog container, and the user input field is cleared afterward.
+	 * Handles user input by adding two messages to the transcript:
+	 * - One for the user's input, straight away
+	 * - One for Clarawr's response, once the command has run on the worker thread
+	 * The user input field is cleared straight away too, so the next command can be typed while this one runs.
 	 */
 	@FXML
 	private void handleUserInput() {
@@ -66,14 +106,60 @@ public class MainWindow extends AnchorPane {
 		assert clarawr != null : "Clarawr instance is not initialized";
 
 		String input = userInput.getText();
-		String response = clarawr.getResponse(input);
+		showMessage(new Message(true, input));
+		userInput.clear();
+
+		if (!busyIndicator.isVisible()) {
+			busyDelay.playFromStart();
+		}
+		commandRunner.submit(input, this::handleResponse);
+	}
+
+	/**
+	 * Shows Clarawr's response to a command. Runs on the JavaFX Application Thread.
+	 *
+	 * @param response The response to the command.
+	 */
+	private void handleResponse(String response) {
 		assert response != null && !response.isEmpty() : "Clarawr's response is null or empty";
 
-		dialogContainer.getChildren().addAll(
-				DialogBox.getUserDialog(input, userImage),
-				DialogBox.getClarawrDialog(response, clarawrImage)
-		);
-		userInput.clear();
+		showMessage(new Message(false, response));
+
+		if (!commandRunner.isBusy()) {
+			busyDelay.stop();
+			busyIndicator.setVisible(false);
+		}
+		if (clarawr.isExit()) {
+			Platform.exit();
+		}
+	}
+
+	/**
+	 * Completes the command name being typed, as far as the known commands allow.
+	 */
+	private void completeCommand() {
+		String completed = clarawr.completeCommand(userInput.getText());
+		userInput.setText(completed);
+		userInput.positionCaret(completed.length());
 	}
-}
 
+	/**
+	 * Adds a message to the end of the transcript and scrolls to it.
+	 * The time taken is recorded in {@link Metrics} as "render message".
+	 */
+	private void showMessage(Message message) {
+		long start = System.nanoTime();
+		transcript.add(message);
+		transcriptView.scrollTo(transcriptView.getItems().size() - 1);
+		RENDER_LATENCY.recordSince(start, false);
+	}
+
+	/**
+	 * Brings back the page of messages before the oldest one shown, keeping that message in view.
+	 */
+	private void showOlderMessages() {
+		Message oldestShown = transcriptView.getItems().get(1);
+		transcript.showOlder();
+		transcriptView.scrollTo(oldestShown);
+	}
+}
@@ -0,0 +1,297 @@
+package clarawr;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.zip.CRC32C;
+
+/**
+ * Represents the tasks of a binary snapshot that is memory-mapped instead of read into memory.
+ * Only the offset of each task is kept until the task is first accessed,
+ * at which point it is decoded and cached. Tasks added later live in memory only.
+ * Once loading is done the list is only read, and reads may come from several threads at once:
+ * every thread that decodes a task agrees on the same cached instance.
+ */
+class MappedTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final int IN_MEMORY = -1;
+    private static final VarHandle DECODED = MethodHandles.arrayElementVarHandle(Task[].class);
+
+    private final ByteBuffer buffer;
+    private final long sequence;
+    private final long nextId;
+    private int[] offsets;
+    private Task[] decoded;
+    private int size;
+
+    private MappedTaskList(ByteBuffer buffer, long sequence, long nextId, int[] offsets) {
+        this.buffer = buffer;
+        this.sequence = sequence;
+        this.nextId = nextId;
+        this.offsets = offsets;
+        this.decoded = new Task[offsets.length];
+        this.size = offsets.length;
+    }
+
+    /**
+     * Maps a binary snapshot and indexes the offset of every task in it.
+     * No task is decoded until it is accessed.
+     *
+     * The checksum of the whole snapshot is verified first, which reads every byte once but decodes nothing.
+     *
+     * @param file The snapshot file, which must start with the binary header of the current version.
+     * @return The lazily decoded list of tasks in the snapshot.
+     * @throws IOException If the file cannot be mapped, is of another version, or fails its checksum.
+     */
+    static MappedTaskList map(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Task file is too large to map.");
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int end = buffer.limit() - TaskCodec.CHECKSUM_LENGTH;
+        if (end < TaskCodec.HEADER_LENGTH + 20
+                || buffer.getInt(0) != TaskCodec.MAGIC || buffer.get(4) != TaskCodec.VERSION) {
+            throw new IOException("Not a supported Clarawr task file.");
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate().position(0).limit(end));
+        if ((int) checksum.getValue() != buffer.getInt(end)) {
+            throw new IOException("Task file does not match its checksum.");
+        }
+        long sequence = buffer.getLong(TaskCodec.HEADER_LENGTH);
+        long nextId = buffer.getLong(TaskCodec.HEADER_LENGTH + 8);
+        int count = buffer.getInt(TaskCodec.HEADER_LENGTH + 16);
+
+        int[] offsets = new int[count];
+        int offset = TaskCodec.HEADER_LENGTH + 20;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = offset;
+            offset += TaskCodec.recordLength(buffer, offset);
+            if (offset > end) {
+                throw new IOException("Task file ends in the middle of a task.");
+            }
+        }
+        if (offset != end) {
+            throw new IOException("Task file holds more than its tasks.");
+        }
+        return new MappedTaskList(buffer, sequence, nextId, offsets);
+    }
+
+    /**
+     * Returns the journal sequence number covered by the mapped snapshot.
+     *
+     * @return The snapshot's sequence number.
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the ID that the next added task was to receive when the snapshot was written.
+     *
+     * @return The snapshot's next task ID.
+     */
+    long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Returns the ID of the task at the given index, reading it straight from the mapping if the task was never decoded.
+     *
+     * @param index The zero-based index of the task.
+     * @return The ID of the task.
+     */
+    long getId(int index) {
+        checkIndex(index);
+
+        Task task = (Task) DECODED.getAcquire(decoded, index);
+        return task != null ? task.getId() : TaskCodec.readId(buffer, offsets[index]);
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+
+        Task task = (Task) DECODED.getAcquire(decoded, index);
+        if (task != null) {
+            return task;
+        }
+
+        // Another thread may decode the same task at the same time, in which case its copy wins
+        task = decode(offsets[index]);
+        Task existing = (Task) DECODED.compareAndExchangeRelease(decoded, index, null, task);
+        return existing == null ? task : existing;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Task previous = get(index);
+        decoded[index] = task;
+        offsets[index] = IN_MEMORY;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        assert task != null : "Task cannot be null";
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        if (size == offsets.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            offsets = Arrays.copyOf(offsets, capacity);
+            decoded = Arrays.copyOf(decoded, capacity);
+        }
+        System.arraycopy(offsets, index, offsets, index + 1, size - index);
+        System.arraycopy(decoded, index, decoded, index + 1, size - index);
+        offsets[index] = IN_MEMORY;
+        decoded[index] = task;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+
+        int moved = size - index - 1;
+        System.arraycopy(offsets, index + 1, offsets, index, moved);
+        System.arraycopy(decoded, index + 1, decoded, index, moved);
+        size--;
+        decoded[size] = null;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes the tasks at the given indexes, moving every later task only once and without decoding it.
+     *
+     * @param indexes The zero-based indexes of the tasks to remove, in increasing order without repeats.
+     */
+    void removeAll(int[] indexes) {
+        if (indexes.length == 0) {
+            return;
+        }
+        checkIndex(indexes[indexes.length - 1]);
+
+        int write = indexes[0];
+        int next = 0;
+        for (int read = indexes[0]; read < size; read++) {
+            if (next < indexes.length && indexes[next] == read) {
+                next++;
+            } else {
+                offsets[write] = offsets[read];
+                decoded[write] = decoded[read];
+                write++;
+            }
+        }
+        Arrays.fill(decoded, write, size, null);
+        size = write;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes every task in the binary task format.
+     * Tasks that were never accessed are copied byte for byte from the mapping without being decoded.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the tasks cannot be written.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        writeTo(out, 0, size);
+    }
+
+    /**
+     * Writes the tasks in a range of indexes in the binary task format,
+     * copying the tasks that were never accessed byte for byte.
+     *
+     * @param out The output to write to.
+     * @param from The index of the first task to write.
+     * @param to The index after the last task to write.
+     * @throws IOException If the tasks cannot be written.
+     */
+    void writeTo(DataOutput out, int from, int to) throws IOException {
+        assert from >= 0 && from <= to && to <= size : "Range out of bounds";
+
+        for (int i = from; i < to; i++) {
+            Task task = (Task) DECODED.getAcquire(decoded, i);
+            if (task != null) {
+                TaskCodec.writeTask(out, task);
+                continue;
+            }
+
+            int length = TaskCodec.recordLength(buffer, offsets[i]);
+            byte[] raw = new byte[length];
+            buffer.get(offsets[i], raw);
+            out.write(raw);
+        }
+    }
+
+    private Task decode(int offset) {
+        try {
+            return TaskCodec.readTask(new DataInputStream(new BufferInput(buffer, offset)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt task data at offset " + offset, e);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Reads from a shared buffer starting at a fixed offset, without moving the shared buffer's position.
+     */
+    private static class BufferInput extends InputStream {
+        private final ByteBuffer buffer;
+        private int position;
+
+        private BufferInput(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        @Override
+        public int read() {
+            if (position >= buffer.limit()) {
+                return -1;
+            }
+            return buffer.get(position++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            int available = Math.min(length, buffer.limit() - position);
+            if (available <= 0) {
+                return length == 0 ? 0 : -1;
+            }
+            buffer.get(position, bytes, offset, available);
+            position += available;
+            return available;
+        }
+    }
+}
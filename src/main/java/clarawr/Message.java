@@ -0,0 +1,45 @@
+package clarawr;
+
+/**
+ * Represents one message in the chat transcript, either typed by the user or replied by Clarawr.
+ */
+class Message {
+    /**
+     * Stands in for the messages that have been moved out of the transcript and can be shown again on request.
+     */
+    static final Message OLDER_MESSAGES = new Message(false, "Show older messages");
+
+    private final boolean isUser;
+    private final String text;
+
+    /**
+     * Constructs a message.
+     *
+     * @param isUser Whether the message was typed by the user.
+     * @param text The text of the message.
+     */
+    Message(boolean isUser, String text) {
+        assert text != null : "Message text cannot be null";
+
+        this.isUser = isUser;
+        this.text = text;
+    }
+
+    /**
+     * Returns whether the message was typed by the user.
+     *
+     * @return true if the user typed the message, false if Clarawr replied with it.
+     */
+    boolean isUser() {
+        return isUser;
+    }
+
+    /**
+     * Returns the text of the message.
+     *
+     * @return The message text.
+     */
+    String getText() {
+        return text;
+    }
+}
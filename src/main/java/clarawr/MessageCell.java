@@ -0,0 +1,54 @@
+package clarawr;
+
+import javafx.scene.control.Button;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+
+/**
+ * Represents one row of the chat transcript.
+ * The list only creates enough cells to fill the window and reuses them while scrolling,
+ * so each cell builds its DialogBox once and then just changes what it shows.
+ */
+class MessageCell extends ListCell<Message> {
+	private final DialogBox dialogBox = new DialogBox();
+	private final Button olderButton = new Button(Message.OLDER_MESSAGES.getText());
+	private final Image userImage;
+	private final Image clarawrImage;
+
+	/**
+	 * Constructs a cell for the given transcript list.
+	 *
+	 * @param listView The list the cell belongs to, whose width the dialog box wraps to.
+	 * @param userImage The user's profile image.
+	 * @param clarawrImage Clarawr's profile image.
+	 * @param showOlder The action that brings back older messages when the button for them is pressed.
+	 */
+	MessageCell(ListView<Message> listView, Image userImage, Image clarawrImage, Runnable showOlder) {
+		assert listView != null : "ListView cannot be null";
+		assert showOlder != null : "Show older action cannot be null";
+
+		this.userImage = userImage;
+		this.clarawrImage = clarawrImage;
+
+		// Leave room for the scroll bar so that long replies wrap instead of widening the row
+		dialogBox.prefWidthProperty().bind(listView.widthProperty().subtract(20));
+		dialogBox.setMaxWidth(USE_PREF_SIZE);
+		olderButton.setOnAction(event -> showOlder.run());
+	}
+
+	@Override
+	protected void updateItem(Message message, boolean isEmpty) {
+		super.updateItem(message, isEmpty);
+		setText(null);
+
+		if (isEmpty || message == null) {
+			setGraphic(null);
+		} else if (message == Message.OLDER_MESSAGES) {
+			setGraphic(olderButton);
+		} else {
+			dialogBox.setMessage(message.getText(), message.isUser() ? userImage : clarawrImage, !message.isUser());
+			setGraphic(dialogBox);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package clarawr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the latency histograms of the whole process, one per measured operation, named after it.
+ * Commands are measured by {@link CommandRegistry}, and parsing, saving and rendering where they happen,
+ * so that the stats command, or a periodic dump to a file, can show where the time goes.
+ * <p>
+ * The dump is turned on by setting the {@code clarawr.metricsFile} system property to the file to write,
+ * which is rewritten every {@code clarawr.metricsIntervalSeconds} seconds, 60 by default, and once more on exit.
+ */
+class Metrics {
+    static final String FILE_PROPERTY = "clarawr.metricsFile";
+    static final String INTERVAL_PROPERTY = "clarawr.metricsIntervalSeconds";
+    private static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+    private static final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the histogram of the given operation, creating it on first use.
+     * Callers on a hot path should look the histogram up once and keep it.
+     *
+     * @param name The name of the operation, e.g. "parse" or "command list".
+     * @return The histogram.
+     */
+    static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Describes every operation that has run at least once, in alphabetical order, one per line.
+     *
+     * @return A table of the count, error count and p50, p99 and maximum latency of each operation.
+     */
+    static String report() {
+        List<LatencyHistogram> measured = new ArrayList<>();
+        for (LatencyHistogram histogram : histograms.values()) {
+            if (histogram.getCount() > 0) {
+                measured.add(histogram);
+            }
+        }
+        if (measured.isEmpty()) {
+            return "Nothing measured yet.";
+        }
+        measured.sort((a, b) -> a.getName().compareTo(b.getName()));
+
+        StringBuilder report = new StringBuilder(String.format("%-20s %8s %6s %9s %9s %9s",
+                "operation", "count", "errors", "p50", "p99", "max"));
+        for (LatencyHistogram histogram : measured) {
+            report.append(String.format("%n%-20s %8d %6d %9s %9s %9s", histogram.getName(), histogram.getCount(),
+                    histogram.getErrorCount(), formatNanos(histogram.getPercentileNanos(50)),
+                    formatNanos(histogram.getPercentileNanos(99)), formatNanos(histogram.getMaxNanos())));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Formats a duration in the largest unit that keeps it above one, e.g. "850ns", "12.3us" or "4.56ms".
+     */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.2fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+
+    /**
+     * Starts rewriting the metrics file in the background if the {@code clarawr.metricsFile} property is set,
+     * and arranges for it to be written once more when the process exits. Does nothing if already started.
+     */
+    static synchronized void startDumpingIfConfigured() {
+        String fileName = System.getProperty(FILE_PROPERTY);
+        if (dumper != null || fileName == null || fileName.isBlank()) {
+            return;
+        }
+        File file = new File(fileName);
+        long interval = Math.max(1, Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS));
+
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "clarawr-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), interval, interval, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(file), "clarawr-metrics-exit"));
+    }
+
+    /**
+     * Writes the report to a temporary file and renames it over the metrics file,
+     * so a reader never sees a half-written report.
+     */
+    private static synchronized void dump(File file) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            Files.writeString(tempFile.toPath(), report() + System.lineSeparator(), StandardCharsets.UTF_8);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Error writing metrics to " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package clarawr;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 /**
  * Parses task data from a string and command input into corresponding task objects.
- * Also provides utility methods for parsing commands and deadlines.
+ * Also provides a utility method for parsing the dates and times typed by the user.
  */
 public class Parser {
+    private static final LatencyHistogram PARSE_DATE_LATENCY = Metrics.histogram("parse date");
 
     /**
      * Parses a task string into a Task object.
@@ -26,48 +27,40 @@ public class Parser {
         if (taskData.startsWith("[T]")) {
             return new Todo(taskData.substring(6), isDone);
         } else if (taskData.startsWith("[D]")) {
-            String[] parts = taskData.substring(6).split(" /by ");
-            assert parts.length == 2 : "Deadline task format is invalid, expected two parts separated by '/by'";
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM-dd-yyyy HH:mm");
-            LocalDateTime deadlineDateTime = LocalDateTime.parse(parts[1].trim(), formatter);
-            return new Deadline(parts[0], deadlineDateTime, isDone);
+            TaskArguments arguments = TaskArguments.parse(taskData.substring(6), "/by");
+            LocalDateTime deadlineDateTime = DateCodec.parseDisplay(arguments.get("/by"));
+            return new Deadline(arguments.getDescription(), deadlineDateTime, isDone);
         } else if (taskData.startsWith("[E]")) {
-            String[] parts = taskData.substring(6).split(" /from ");
-            assert parts.length == 2 : "Event task format is invalid, expected '/from' separator";
-
-            String[] times = parts[1].split(" /to ");
-            assert times.length == 2 : "Event time format is invalid, expected '/to' separator";
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM-dd-yyyy HH:mm");
-            LocalDateTime from = LocalDateTime.parse(times[0].trim(), formatter);
-            LocalDateTime to = LocalDateTime.parse(times[1].trim(), formatter);
-            return new Event(parts[0], from, to, isDone);
+            TaskArguments arguments = TaskArguments.parse(taskData.substring(6), "/from", "/to");
+            LocalDateTime from = DateCodec.parseDisplay(arguments.get("/from"));
+            LocalDateTime to = DateCodec.parseDisplay(arguments.get("/to"));
+            return new Event(arguments.getDescription(), from, to, isDone);
         }
 
         throw new Exception("Invalid task data format.");
     }
 
     /**
-     * Parses a command input string into an array of command and arguments.
-     * The input string is split into two parts at the first space.
-     *
-     * @param input The command input string.
-     * @return An array of strings where the first element is the command and the second is the argument.
-     */
-    public static String[] parseCommand(String input) {
-        return input.split(" ", 2);
-    }
-
-    /**
-     * Parses a deadline time string into a LocalDateTime object.
+     * Parses a date and time typed by the user into a LocalDateTime object.
      * The expected format is "yyyy-MM-dd HHmm".
      *
-     * @param dateTimeString The deadline string to parse.
+     * @param dateTimeString The date and time to parse.
+     * @param flag The flag the value was given after, used to point out a mistake, e.g. "/by".
      * @return The corresponding LocalDateTime object.
+     * @throws ClarawrException If the text is not a valid date and time.
      */
-    public static LocalDateTime parseDeadlineTime(String dateTimeString) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-        return LocalDateTime.parse(dateTimeString, formatter);
+    public static LocalDateTime parseDateTime(String dateTimeString, String flag) throws ClarawrException {
+        long start = System.nanoTime();
+        boolean isError = true;
+        try {
+            LocalDateTime dateTime = DateCodec.parseInput(dateTimeString);
+            isError = false;
+            return dateTime;
+        } catch (DateTimeParseException e) {
+            throw new ClarawrException("RAWR " + flag + " " + dateTimeString + " is not a time I know. "
+                    + "Use YYYY-MM-DD HHmm, e.g. 2025-01-01 2359.");
+        } finally {
+            PARSE_DATE_LATENCY.recordSince(start, isError);
+        }
     }
 }
@@ -0,0 +1,262 @@
+package clarawr;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reminds the user of undone deadlines and events a set time before they are due or start.
+ * Rather than keeping a timer per task, a single background tick asks the task list's agenda, which is already
+ * ordered by time, for the tasks that came within each lead time since the previous tick. Each question costs
+ * a logarithmic search plus the number of reminders due, so pending tasks cost nothing between ticks,
+ * and marking or deleting a task needs no rescheduling, since the agenda it is taken out of is the schedule.
+ * <p>
+ * Lead times are read from the {@code clarawr.reminders} system property as a comma-separated list
+ * such as "1d,2h,15m", and default to a day and a quarter of an hour. "none" turns reminders off.
+ */
+class Reminders {
+    static final String LEAD_TIMES_PROPERTY = "clarawr.reminders";
+    private static final String DEFAULT_LEAD_TIMES = "1d,15m";
+    private static final Duration[] DEFAULT_LEAD_TIME_VALUES = { Duration.ofDays(1), Duration.ofMinutes(15) };
+    private static final long TICK_SECONDS = 30;
+
+    private final Supplier<TaskList> taskLists;
+    private final Supplier<String> listNames;
+    private final Duration[] leadTimes;
+    private final Map<String, Checkpoint> checkpoints = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs reminders for whichever task list the suppliers return at each tick.
+     * How far each list has been checked is kept by its name, since a list is read into a new task list
+     * every time it is switched back to.
+     *
+     * @param taskLists Supplies the task list in use, or null if it has not been read from disk yet,
+     *                  in which case the tick is skipped rather than reading it.
+     * @param listNames Supplies the name of the task list in use.
+     * @param leadTimes How long before a task is due or starts to remind the user, one reminder per lead time.
+     */
+    Reminders(Supplier<TaskList> taskLists, Supplier<String> listNames, Duration... leadTimes) {
+        assert taskLists != null : "Task list supplier cannot be null";
+        assert listNames != null : "List name supplier cannot be null";
+
+        this.taskLists = taskLists;
+        this.listNames = listNames;
+        this.leadTimes = leadTimes.clone();
+        Arrays.sort(this.leadTimes);
+    }
+
+    /**
+     * Reads the lead times set by the {@code clarawr.reminders} system property, or the default ones.
+     *
+     * @return The lead times, which are empty if reminders are turned off.
+     */
+    static Duration[] leadTimesFromSettings() {
+        String setting = System.getProperty(LEAD_TIMES_PROPERTY, DEFAULT_LEAD_TIMES);
+        try {
+            return parseLeadTimes(setting);
+        } catch (ClarawrException e) {
+            System.out.println("Warning: " + e.getMessage() + " Using " + DEFAULT_LEAD_TIMES + " instead.");
+            return DEFAULT_LEAD_TIME_VALUES.clone();
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of lead times, each a positive number followed by d, h or m.
+     *
+     * @param text The lead times, e.g. "1d,2h,15m", or "none".
+     * @return The lead times.
+     * @throws ClarawrException If a lead time is not a positive number followed by d, h or m.
+     */
+    static Duration[] parseLeadTimes(String text) throws ClarawrException {
+        if (text.trim().equalsIgnoreCase("none")) {
+            return new Duration[0];
+        }
+
+        String[] items = text.split(",");
+        Duration[] leadTimes = new Duration[items.length];
+        for (int i = 0; i < items.length; i++) {
+            String item = items[i].trim().toLowerCase();
+            long amount;
+            try {
+                amount = Long.parseLong(item.substring(0, Math.max(0, item.length() - 1)));
+            } catch (NumberFormatException e) {
+                amount = 0;
+            }
+            char unit = item.isEmpty() ? ' ' : item.charAt(item.length() - 1);
+            if (amount <= 0 || (unit != 'd' && unit != 'h' && unit != 'm')) {
+                throw new ClarawrException("I don't understand the reminder time \"" + item + "\". "
+                        + "Use something like 1d, 2h or 15m.");
+            }
+            leadTimes[i] = unit == 'd' ? Duration.ofDays(amount)
+                    : unit == 'h' ? Duration.ofHours(amount)
+                    : Duration.ofMinutes(amount);
+        }
+        return leadTimes;
+    }
+
+    /**
+     * Starts the background tick. Reminders are passed to the callback on the tick's thread.
+     * Does nothing if there are no lead times.
+     *
+     * @param onReminder The callback that shows a reminder to the user.
+     */
+    synchronized void start(Consumer<String> onReminder) {
+        assert onReminder != null : "Reminder callback cannot be null";
+        assert scheduler == null : "Reminders are already running";
+
+        if (leadTimes.length == 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "clarawr-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                check(LocalDateTime.now()).forEach(onReminder);
+            } catch (RuntimeException e) {
+                // A failed tick must not cancel the ticks after it
+                System.out.println("Error checking reminders: " + e.getMessage());
+            }
+        }, 0, TICK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background tick.
+     */
+    synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Collects the reminders that have fallen due since the previous check.
+     * A task is reminded of once for each lead time, when the time left before it is due or starts drops below it.
+     * Tasks that are already within a lead time when they are first seen, such as on the first check of a list
+     * or when they were added since the previous check, are reminded of once, by the shortest lead time that covers them.
+     * The list is held still while it is checked, so a task added meanwhile is neither missed nor reminded of twice.
+     * Switching to another list and back carries on from where the list was last checked.
+     *
+     * @param now The current time.
+     * @return The reminders, one per line to show.
+     */
+    synchronized List<String> check(LocalDateTime now) {
+        String name = listNames.get();
+        TaskList taskList = taskLists.get();
+        List<String> reminders = new ArrayList<>();
+        // The list may have been switched between the two reads, so the task list may not be the named one
+        if (taskList == null || !name.equals(listNames.get())) {
+            return reminders;
+        }
+
+        synchronized (taskList) {
+            Checkpoint checked = checkpoints.get(name);
+            boolean isFirstCheck = checked == null;
+            Duration previous = Duration.ZERO;
+            for (Duration leadTime : leadTimes) {
+                LocalDateTime from = isFirstCheck ? now.plus(previous) : checked.until.plus(leadTime);
+                LocalDateTime until = now.plus(leadTime);
+                // The clock may have been turned back, in which case there is nothing new to remind of
+                if (from.isBefore(until)) {
+                    for (Task task : taskList.getUpcomingTasks(from, until)) {
+                        reminders.add(describe(task, now));
+                    }
+                }
+                previous = leadTime;
+            }
+            if (!isFirstCheck) {
+                addRemindersForNewTasks(taskList, checked, now, reminders);
+            }
+
+            checkpoints.put(name, new Checkpoint(now, taskList.getNextId()));
+        }
+        return reminders;
+    }
+
+    /**
+     * Adds reminders for the tasks added since the previous check that were already within a lead time when added,
+     * and so came before the part of the agenda that the check looked at for that lead time.
+     * New tasks have the largest IDs, so they are found by walking back from the end of the list.
+     */
+    private void addRemindersForNewTasks(TaskList taskList, Checkpoint checked, LocalDateTime now,
+            List<String> reminders) {
+        for (int i = taskList.getSize() - 1; i >= 0; i--) {
+            Task task = taskList.getTask(i);
+            if (task.getId() < checked.nextId) {
+                break;
+            }
+            LocalDateTime time = getTime(task);
+            if (time == null || task.isDone() || time.isBefore(now)) {
+                continue;
+            }
+            for (Duration leadTime : leadTimes) {
+                if (time.isBefore(now.plus(leadTime))) {
+                    if (time.isBefore(checked.until.plus(leadTime))) {
+                        reminders.add(describe(task, now));
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns when a deadline is due or an event starts, or null for a todo.
+     */
+    private static LocalDateTime getTime(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getDeadline();
+        } else if (task instanceof Event) {
+            return ((Event) task).getFrom();
+        }
+        return null;
+    }
+
+    private static String describe(Task task, LocalDateTime now) {
+        return "RAWR reminder! " + (task instanceof Event ? "Starting" : "Due") + " in "
+                + describe(Duration.between(now, getTime(task))) + ": #" + task.getId() + task;
+    }
+
+    /**
+     * Describes a time left in its largest whole unit, e.g. "2 days", "1 hour" or "15 minutes".
+     */
+    private static String describe(Duration timeLeft) {
+        long minutes = Math.max(1, (timeLeft.getSeconds() + 59) / 60);
+        if (minutes >= 24 * 60) {
+            return plural(minutes / (24 * 60), "day");
+        } else if (minutes >= 60) {
+            return plural(minutes / 60, "hour");
+        }
+        return plural(minutes, "minute");
+    }
+
+    private static String plural(long count, String unit) {
+        return count + " " + unit + (count == 1 ? "" : "s");
+    }
+
+    /**
+     * Represents how far a task list has been checked: up to which time, and up to which task ID.
+     */
+    private static class Checkpoint {
+        private final LocalDateTime until;
+        private final long nextId;
+
+        private Checkpoint(LocalDateTime until, long nextId) {
+            this.until = until;
+            this.nextId = nextId;
+        }
+    }
+}
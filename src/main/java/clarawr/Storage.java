@@ -2,62 +2,615 @@ package clarawr;
 
 import java.io.*;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * Handles saving and loading tasks to and from a file.
- * The file path is hardcoded, and tasks are stored in a text file.
+ * Tasks are kept in the binary format of {@link TaskCodec}, as a snapshot file plus an append-only {@link Journal} of the changes made since.
+ * Journal records are committed in groups by a {@link GroupCommitWriter}, so callers never block on disk.
+ * Once the journal grows large enough, it is compacted into a new snapshot on a background thread.
+ * The last few snapshots are kept as numbered generations next to the current one, and each ends with a checksum,
+ * so if the current snapshot is damaged, the newest generation that is still intact is loaded instead.
+ * A background write that fails is kept until it is reported, by the next flush or by {@link #checkSaved()},
+ * so the user hears about it even though nobody was waiting on the write.
  */
 public class Storage {
-    private static final String FILE_PATH = "C:\\Users\\user\\CS2103_IP\\ip\\src\\data\\clarawr.txt";
-    private static ArrayList<Task> tasks;
+    private static final String TEXT_SNAPSHOT_HEADER = "#journal ";
+    private static final int COMPACTION_THRESHOLD = 1000;
+    private static final long DEFAULT_FLUSH_DELAY_MILLIS = Long.getLong("clarawr.flushDelayMillis", 50);
+    private static final int DEFAULT_GENERATIONS = Integer.getInteger("clarawr.snapshotGenerations", 3);
+    private static final LatencyHistogram SNAPSHOT_LATENCY = Metrics.histogram("save snapshot");
+    private static final LatencyHistogram FLUSH_LATENCY = Metrics.histogram("flush");
+    private static final LatencyHistogram LOAD_LATENCY = Metrics.histogram("load");
+
+    private final File snapshotFile;
+    private final File[] generationFiles;
+    private final File journalFile;
+    private final File compactingFile;
+    private final File tempFile;
+    private final GroupCommitWriter writer;
+    private final ExecutorService compactor;
+    private final AtomicBoolean isCompacting = new AtomicBoolean(false);
+    private final AtomicReference<IOException> pendingFailure = new AtomicReference<>();
+    private long sequence;
+    private int recordCount;
+    private long nextId = 1;
+
+    /**
+     * Constructs a storage backed by the given task file.
+     * The journal and temporary files are kept next to it.
+     *
+     * @param filePath The path of the snapshot file.
+     */
+    public Storage(String filePath) {
+        this(filePath, DEFAULT_FLUSH_DELAY_MILLIS);
+    }
+
+    /**
+     * Constructs a storage backed by the given task file, with a custom group commit delay.
+     *
+     * @param filePath The path of the snapshot file.
+     * @param maxFlushDelayMillis The longest time a change may wait before it is written to disk.
+     */
+    public Storage(String filePath, long maxFlushDelayMillis) {
+        this(filePath, maxFlushDelayMillis, DEFAULT_GENERATIONS);
+    }
+
+    /**
+     * Constructs a storage backed by the given task file, with a custom group commit delay and number of snapshots kept.
+     *
+     * @param filePath The path of the snapshot file.
+     * @param maxFlushDelayMillis The longest time a change may wait before it is written to disk.
+     * @param generations The number of snapshots kept, counting the current one. Older ones are named
+     *                    after the snapshot file with ".1", ".2" and so on appended.
+     */
+    public Storage(String filePath, long maxFlushDelayMillis, int generations) {
+        assert filePath != null && !filePath.isEmpty() : "File path cannot be null or empty";
+        assert generations > 0 : "At least one snapshot must be kept";
+
+        this.snapshotFile = new File(filePath);
+        this.generationFiles = new File[generations];
+        generationFiles[0] = snapshotFile;
+        for (int i = 1; i < generations; i++) {
+            generationFiles[i] = new File(filePath + "." + i);
+        }
+        this.journalFile = new File(filePath + ".journal");
+        this.compactingFile = new File(filePath + ".journal.old");
+        this.tempFile = new File(filePath + ".tmp");
+        this.writer = new GroupCommitWriter(new Journal(journalFile), maxFlushDelayMillis);
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "clarawr-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     /**
      * Saves a list of tasks to a file.
-     * Each task is written in a format suitable for later loading.
+     * The whole list is written as a new snapshot and the journal is cleared.
+     * This call waits until the snapshot is on disk.
      *
      * @param tasks The list of tasks to save to the file.
+     * @throws ClarawrException If the snapshot, or an earlier change, could not be written.
      */
-    public static void saveTasksToFile(ArrayList<Task> tasks) {
-        Storage.tasks = tasks;
-
+    public void saveTasksToFile(List<Task> tasks) throws ClarawrException {
         assert tasks != null : "Tasks list cannot be null";
 
+        flush();
+        startCompaction(tasks);
+        flush();
+    }
+
+    /**
+     * Waits until every change recorded so far, including any running compaction, is on disk.
+     * The time spent waiting is recorded in {@link Metrics} as "flush".
+     *
+     * @throws ClarawrException If a change or snapshot could not be written since the last failure was reported.
+     */
+    public void flush() throws ClarawrException {
+        long start = System.nanoTime();
+        boolean isError = true;
         try {
-            File file = new File(FILE_PATH);
-            file.getParentFile().mkdirs();
+            awaitWrites();
+            checkSaved();
+            isError = false;
+        } finally {
+            FLUSH_LATENCY.recordSince(start, isError);
+        }
+    }
+
+    /**
+     * Reports a change or snapshot that could not be written since the last failure was reported.
+     * Unlike {@link #flush()}, this does not wait for pending writes, so it is cheap enough to call after every command.
+     *
+     * @throws ClarawrException If a write failed.
+     */
+    public void checkSaved() throws ClarawrException {
+        IOException failure = writer.takeFailure();
+        if (failure == null) {
+            failure = pendingFailure.getAndSet(null);
+        }
+        if (failure != null) {
+            String reason = failure.getMessage() == null ? failure.getClass().getSimpleName() : failure.getMessage();
+            throw new ClarawrException("RAWR I couldn't save your tasks to disk (" + reason + "). "
+                    + "Recent changes may be lost if you quit now.");
+        }
+    }
+
+    /**
+     * Waits until every queued record and snapshot has been written or has failed.
+     * A failure is left pending for {@link #checkSaved()} to report.
+     */
+    private void awaitWrites() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            // Still pending in the writer, so it is reported along with any snapshot failure
+        }
+        try {
+            // The compactor runs tasks in order, so this returns once earlier snapshots are written
+            compactor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Snapshot tasks catch their own failures, so only a bug ends up here
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 
-            assert file.exists() || file.createNewFile() : "File path is not valid or file could not be created.";
+    /**
+     * Writes out every pending change, then stops the background threads.
+     * The storage cannot record changes afterwards, but the tasks it loaded can still be read.
+     * The threads are stopped even if a write failed.
+     *
+     * @throws ClarawrException If a change or snapshot could not be written.
+     */
+    public void close() throws ClarawrException {
+        try {
+            flush();
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // Only closing the journal can fail here, since the flush above took any pending failure
+                pendingFailure.compareAndSet(null, e);
+            }
+            compactor.shutdown();
+        }
+        checkSaved();
+    }
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH))) {
+    /**
+     * Records that a task was added to the end of the list.
+     *
+     * @param task The task that was added.
+     */
+    public void logAdd(Task task) {
+        assert task != null : "Task cannot be null";
+
+        nextId = Math.max(nextId, task.getId() + 1);
+        append(Journal.ADD, TaskCodec.encode(task));
+    }
+
+    /**
+     * Records that the task at the given index was marked as done.
+     *
+     * @param index The zero-based index of the task.
+     */
+    public void logMarkDone(int index) {
+        append(Journal.MARK, encodeIndex(index));
+    }
+
+    /**
+     * Records that the task at the given index was marked as undone.
+     *
+     * @param index The zero-based index of the task.
+     */
+    public void logMarkUndone(int index) {
+        append(Journal.UNMARK, encodeIndex(index));
+    }
+
+    /**
+     * Records that the task at the given index was deleted.
+     *
+     * @param index The zero-based index of the task.
+     */
+    public void logDelete(int index) {
+        append(Journal.DELETE, encodeIndex(index));
+    }
+
+    /**
+     * Records that the tasks at the given indexes were all marked as done, as a single journal record.
+     *
+     * @param indexes The zero-based indexes of the tasks, in increasing order.
+     */
+    public void logMarkDone(int[] indexes) {
+        append(Journal.MARK_ALL, encodeIndexes(indexes));
+    }
+
+    /**
+     * Records that the tasks at the given indexes were all marked as undone, as a single journal record.
+     *
+     * @param indexes The zero-based indexes of the tasks, in increasing order.
+     */
+    public void logMarkUndone(int[] indexes) {
+        append(Journal.UNMARK_ALL, encodeIndexes(indexes));
+    }
+
+    /**
+     * Records that the tasks at the given indexes were all deleted at once, as a single journal record.
+     * The indexes are those the tasks had before any of them was deleted.
+     *
+     * @param indexes The zero-based indexes of the tasks, in increasing order.
+     */
+    public void logDelete(int[] indexes) {
+        append(Journal.DELETE_ALL, encodeIndexes(indexes));
+    }
+
+    /**
+     * Starts a background compaction if the journal has grown past its threshold
+     * and no other compaction is still running.
+     *
+     * @param tasks The current list of tasks, which the journal describes.
+     */
+    public void compactIfNeeded(List<Task> tasks) {
+        if (recordCount >= COMPACTION_THRESHOLD && !isCompacting.get()) {
+            startCompaction(tasks);
+        }
+    }
+
+    private void append(char op, byte[] payload) {
+        sequence++;
+        recordCount++;
+        writer.submitRecord(sequence, op, payload);
+    }
+
+    private static byte[] encodeIndex(int index) {
+        return new byte[] { (byte) (index >>> 24), (byte) (index >>> 16), (byte) (index >>> 8), (byte) index };
+    }
+
+    private static byte[] encodeIndexes(int[] indexes) {
+        ByteBuffer payload = ByteBuffer.allocate(4 + indexes.length * 4);
+        payload.putInt(indexes.length);
+        for (int index : indexes) {
+            payload.putInt(index);
+        }
+        return payload.array();
+    }
+
+    /**
+     * Captures the tasks and queues a journal rotation followed by a background snapshot write.
+     * The tasks are encoded on the calling thread, so the background threads never touch the live list.
+     */
+    private void startCompaction(List<Task> tasks) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(tasks.size() * 32);
+        try {
+            DataOutputStream out = new DataOutputStream(body);
+            out.writeInt(tasks.size());
+            if (tasks instanceof TaskTree) {
+                // Tasks that were never touched are copied without being decoded
+                ((TaskTree) tasks).writeTo(out);
+            } else if (tasks instanceof MappedTaskList) {
+                ((MappedTaskList) tasks).writeTo(out);
+            } else {
                 for (Task task : tasks) {
+                    TaskCodec.writeTask(out, task);
+                }
+            }
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new UncheckedIOException(e);
+        }
+        long snapshotSequence = sequence;
+        long snapshotNextId = nextId;
+
+        int taskCount = tasks.size();
+
+        isCompacting.set(true);
+        recordCount = 0;
+        writer.submitRotation(compactingFile, () -> compactor.execute(() -> {
+            FlightEvents.TasksSaved event = new FlightEvents.TasksSaved();
+            event.begin();
+            long start = System.nanoTime();
+            boolean isError = false;
+            try {
+                writeSnapshot(body, snapshotSequence, snapshotNextId);
+                Files.deleteIfExists(compactingFile.toPath());
+            } catch (IOException e) {
+                isError = true;
+                pendingFailure.compareAndSet(null, e);
+            } finally {
+                SNAPSHOT_LATENCY.recordSince(start, isError);
+                isCompacting.set(false);
+            }
+            if (event.shouldCommit()) {
+                event.target = "snapshot";
+                event.taskCount = taskCount;
+                event.bytes = TaskCodec.HEADER_LENGTH + 2 * Long.BYTES + body.size() + TaskCodec.CHECKSUM_LENGTH;
+                event.hasSucceeded = !isError;
+                event.commit();
+            }
+        }));
+    }
+
+    /**
+     * Writes a snapshot to a temporary file, forces it to disk and only then renames it into place,
+     * so a crash at any point leaves either the old snapshot or the new one, never a half-written one.
+     * The old snapshot becomes the newest generation and the oldest generation is dropped.
+     * The old snapshot is moved rather than replaced because it may still be memory-mapped
+     * by a {@link MappedTaskList}, and some platforms refuse to replace mapped files.
+     * The snapshot holds the binary header, the journal sequence it covers, the next task ID to give out,
+     * the task count, the tasks and a checksum of everything before it.
+     */
+    private void writeSnapshot(ByteArrayOutputStream body, long sequence, long nextId) throws IOException {
+        File parent = snapshotFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        FileOutputStream file = new FileOutputStream(tempFile);
+        try (file) {
+            CRC32C checksum = new CRC32C();
+            DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(file), checksum));
+            TaskCodec.writeHeader(out);
+            out.writeLong(sequence);
+            out.writeLong(nextId);
+            body.writeTo(out);
+            out.writeInt((int) checksum.getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+
+        shiftGenerations();
+        // If an old generation is still mapped and could not be shifted, the current snapshot was never mapped
+        Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(parent);
+    }
 
-                    assert task.toFileString() != null && !task.toFileString().isEmpty() : "Task cannot be saved in an invalid format";
-                    writer.write(task.toFileString());
-                    writer.newLine();
+    /**
+     * Moves every snapshot one generation older, dropping the oldest, to make room for a new snapshot.
+     */
+    private void shiftGenerations() {
+        try {
+            Files.deleteIfExists(generationFiles[generationFiles.length - 1].toPath());
+            for (int i = generationFiles.length - 2; i >= 0; i--) {
+                if (generationFiles[i].exists()) {
+                    Files.move(generationFiles[i].toPath(), generationFiles[i + 1].toPath(),
+                            StandardCopyOption.ATOMIC_MOVE);
                 }
-                writer.flush();
             }
         } catch (IOException e) {
-            System.out.println("Error saving tasks to file.");
+            // Still mapped; the generations are shifted by a later save once the mapping is released
+        }
+    }
+
+    /**
+     * Forces the renames in a directory to disk. Not every platform can do this, in which case
+     * the renames reach the disk whenever the system next writes the directory out.
+     */
+    private static void syncDirectory(File directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened for syncing on this platform
         }
     }
 
     /**
      * Loads tasks from a file.
-     * Each line in the file is parsed into a task object.
-     * If corrupt data is encountered, the line is skipped.
+     * The snapshot is memory-mapped and its tasks are decoded on first access, so loading does not
+     * grow with the number of tasks kept. The journal records written after it are then replayed in order.
+     * If the snapshot is missing or damaged, the newest intact generation is loaded instead and saved again
+     * as the current snapshot. Only the journal records that follow on from it without a gap are replayed.
+     * Files still in the older text format are read as text, and files written before tasks had IDs
+     * have IDs given out in list order. Both are then rewritten in the current binary format.
+     *
+     * The time taken is recorded in {@link Metrics} as "load" and as a {@link FlightEvents.TasksLoaded} event.
      *
      * @return A list of tasks loaded from the file.
      */
-    public ArrayList<Task> loadTasksFromFile() {
-        ArrayList<Task> tasks = new ArrayList<>();
+    public List<Task> loadTasksFromFile() {
+        FlightEvents.TasksLoaded event = new FlightEvents.TasksLoaded();
+        event.begin();
+        long start = System.nanoTime();
+        List<Task> tasks = readTasks();
+        LOAD_LATENCY.recordSince(start, false);
+        if (event.shouldCommit()) {
+            event.taskCount = tasks.size();
+            event.bytes = snapshotFile.length() + compactingFile.length() + journalFile.length();
+            event.commit();
+        }
+        return tasks;
+    }
+
+    private List<Task> readTasks() {
+        List<Task> tasks = null;
+        long snapshotSequence = 0;
+        boolean needsRewrite = false;
+        boolean lacksIds = false;
+
+        if (snapshotFile.exists() && !TaskCodec.isBinary(snapshotFile)) {
+            ArrayList<Task> loaded = new ArrayList<>();
+            snapshotSequence = loadTextSnapshot(loaded);
+            tasks = loaded;
+            needsRewrite = true;
+            lacksIds = true;
+        }
+        for (int i = 0; tasks == null && i < generationFiles.length; i++) {
+            File file = generationFiles[i];
+            if (!file.exists()) {
+                continue;
+            }
+
+            MappedTaskList mapped = mapSnapshot(file);
+            if (mapped != null) {
+                snapshotSequence = mapped.getSequence();
+                nextId = mapped.getNextId();
+                tasks = mapped;
+            } else {
+                ArrayList<Task> loaded = new ArrayList<>();
+                snapshotSequence = loadBinarySnapshot(file, loaded);
+                if (snapshotSequence < 0) {
+                    System.out.println("Warning: Saved tasks in " + file.getName() + " are damaged. Trying an older copy.");
+                    continue;
+                }
+                tasks = loaded;
+                byte version = getVersion(file);
+                needsRewrite = version != TaskCodec.VERSION;
+                lacksIds = version == TaskCodec.VERSION_WITHOUT_IDS;
+            }
+
+            if (i > 0) {
+                System.out.println("Warning: Loaded an older copy of your tasks. Recent changes may be missing.");
+                needsRewrite = true;
+            }
+        }
+        if (tasks == null) {
+            System.out.println("No existing tasks found.");
+            tasks = new ArrayList<>();
+        }
+
+        // Records left over from an interrupted compaction come before the live journal
+        for (File journal : new File[] { compactingFile, journalFile }) {
+            byte version = getVersion(journal);
+            needsRewrite |= version != TaskCodec.VERSION;
+            lacksIds |= version < TaskCodec.VERSION_WITHOUT_CHECKSUM;
+        }
+        long[] replayed = Journal.replay(compactingFile, tasks, snapshotSequence);
+        long[] live = Journal.replay(journalFile, tasks, replayed[0]);
+        sequence = live[0];
+        recordCount = (int) live[1];
+        nextId = Math.max(nextId, Math.max(replayed[2], live[2]) + 1);
+
+        if (lacksIds) {
+            // Older files have no IDs at all, so the tasks are numbered in list order
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).setId(i + 1);
+            }
+            nextId = tasks.size() + 1;
+        }
+        if (needsRewrite) {
+            // A failed rewrite is reported by the next flush or check, since the tasks themselves loaded fine
+            startCompaction(tasks);
+            awaitWrites();
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the format version of a file that has to be read,
+     * or the current version if the file is missing or empty and so has nothing to convert.
+     */
+    private static byte getVersion(File file) {
+        return file.length() == 0 ? TaskCodec.VERSION : TaskCodec.readVersion(file);
+    }
+
+    /**
+     * Returns the ID that the next added task should receive, so that IDs are never given out twice,
+     * even to a task added after the one holding the largest ID was deleted.
+     *
+     * @return The next task ID.
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+
+    /**
+     * Maps a snapshot so that tasks are only decoded once they are accessed.
+     * Returns null if the snapshot cannot be mapped, is of an older version or is damaged,
+     * so it can be read the ordinary way.
+     */
+    private static MappedTaskList mapSnapshot(File file) {
+        try {
+            return MappedTaskList.map(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads every task of a binary snapshot into memory.
+     * A snapshot with a checksum is only accepted whole. If an older snapshot without one is corrupt,
+     * the tasks before the corrupt one are kept.
+     *
+     * @return The journal sequence the snapshot covers, or -1 if the snapshot fails its checksum or cannot be read.
+     */
+    private long loadBinarySnapshot(File file, ArrayList<Task> tasks) {
+        CRC32C checksum = new CRC32C();
+        try (DataInputStream in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(new FileInputStream(file)), checksum))) {
+            byte version = TaskCodec.readHeader(in);
+            long snapshotSequence = in.readLong();
+            // The ID is only adopted once the snapshot is accepted, so a damaged one cannot leave a garbage ID behind
+            long snapshotNextId = version == TaskCodec.VERSION_WITHOUT_IDS ? nextId : in.readLong();
+            int count = in.readInt();
+            tasks.ensureCapacity(count);
+            try {
+                for (int i = 0; i < count; i++) {
+                    tasks.add(TaskCodec.readTask(in, version));
+                }
+            } catch (IOException e) {
+                if (version == TaskCodec.VERSION) {
+                    throw e;
+                }
+                System.out.println("Warning: Corrupt task data detected. Some tasks could not be loaded.");
+                nextId = snapshotNextId;
+                return 0;
+            }
+
+            if (version == TaskCodec.VERSION) {
+                int expected = (int) checksum.getValue();
+                if (in.readInt() != expected || in.read() != -1) {
+                    tasks.clear();
+                    return -1;
+                }
+            }
+            nextId = snapshotNextId;
+            return snapshotSequence;
+        } catch (IOException e) {
+            tasks.clear();
+            return -1;
+        }
+    }
+
+    /**
+     * Reads a snapshot written in the older text format, one task per line.
+     * If corrupt data is encountered, the line is skipped.
+     */
+    private long loadTextSnapshot(List<Task> tasks) {
+        long snapshotSequence = 0;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_PATH))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(snapshotFile, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
-
-                assert line != null && !line.trim().isEmpty() : "Task data line is null or empty";
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (line.startsWith(TEXT_SNAPSHOT_HEADER)) {
+                    snapshotSequence = Long.parseLong(line.substring(TEXT_SNAPSHOT_HEADER.length()).trim());
+                    continue;
+                }
 
                 try {
                     tasks.add(Parser.parseTask(line));
@@ -65,10 +618,9 @@ public class Storage {
                     System.out.println("Warning: Corrupt task data detected. Skipping line.");
                 }
             }
-        } catch (IOException e) {
+        } catch (IOException | NumberFormatException e) {
             System.out.println("No existing tasks found.");
         }
-        return tasks;
+        return snapshotSequence;
     }
 }
-
@@ -8,8 +8,9 @@ import java.util.Objects;
  */
 abstract class Task {
     protected String description;
-    protected boolean isDone;
+    protected volatile boolean isDone;
     protected TaskType type;
+    protected long id;
 
     /**
      * Constructs a new task with a description and task type.
@@ -41,6 +42,7 @@ abstract class Task {
 
     /**
      * Marks the task as completed.
+     * A task already in a task list is never changed this way, but replaced by a copy from {@link #withDone}.
      */
     public void markAsDone() {
         this.isDone = true;
@@ -48,6 +50,7 @@ abstract class Task {
 
     /**
      * Marks the task as not completed.
+     * A task already in a task list is never changed this way, but replaced by a copy from {@link #withDone}.
      */
     public void markUndone() {
         this.isDone = false;
@@ -82,6 +85,35 @@ abstract class Task {
         return description;
     }
 
+    /**
+     * Returns the ID of the task.
+     * The ID is given when the task is added to a list and never changes, even as tasks before it are deleted.
+     * A task that was never added has ID 0.
+     *
+     * @return The ID of the task.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the task. Only the task list and the storage give out IDs.
+     *
+     * @param id The ID of the task.
+     */
+    void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns a copy of the task with the given completion status and the same ID.
+     * The task list marks a task by replacing it with such a copy, so snapshots taken earlier keep the old status.
+     *
+     * @param isDone The completion status of the copy.
+     * @return The copy of the task.
+     */
+    abstract Task withDone(boolean isDone);
+
     /**
      * Returns whether the task is completed.
      *
@@ -0,0 +1,132 @@
+package clarawr;
+
+/**
+ * Represents the description and flag values of a task, such as "return book /by 2025-01-01 2359".
+ * Both the add commands and the older text file format write tasks this way, so both read them through here.
+ * The text is scanned once, from left to right, and each flag is found with a direct character comparison,
+ * so no regular expressions or intermediate arrays are involved.
+ * A flag only counts at the start of the text or after a space, and when it is followed by a space or the end,
+ * so a slash inside the description, as in "read 1/2 of book", is left alone.
+ */
+class TaskArguments {
+    private static final LatencyHistogram PARSE_LATENCY = Metrics.histogram("parse arguments");
+
+    private final String description;
+    private final String[] flags;
+    private final String[] values;
+
+    private TaskArguments(String description, String[] flags, String[] values) {
+        this.description = description;
+        this.flags = flags;
+        this.values = values;
+    }
+
+    /**
+     * Pulls the description and the value of each flag out of the text.
+     * The flags must all be present, in the given order, each followed by a value.
+     * Values have their surrounding spaces removed.
+     *
+     * @param text The text to read, such as the arguments of a deadline command.
+     * @param flags The flags that follow the description, in order, e.g. "/from" and "/to".
+     * @return The description and flag values.
+     * @throws ClarawrException If the description is empty, or a flag is missing, out of order or has no value.
+     */
+    static TaskArguments parse(String text, String... flags) throws ClarawrException {
+        assert text != null : "Text cannot be null";
+        assert flags.length > 0 : "At least one flag is needed";
+
+        long start = System.nanoTime();
+        boolean isError = true;
+        try {
+            TaskArguments arguments = read(text, flags);
+            isError = false;
+            return arguments;
+        } finally {
+            PARSE_LATENCY.recordSince(start, isError);
+        }
+    }
+
+    private static TaskArguments read(String text, String[] flags) throws ClarawrException {
+        String description = null;
+        String[] values = new String[flags.length];
+        int next = 0;
+        int valueStart = 0;
+
+        for (int i = 0; i < text.length() && next < flags.length; i++) {
+            if (text.charAt(i) != '/' || (i > 0 && text.charAt(i - 1) != ' ')) {
+                continue;
+            }
+            int found = findFlag(text, i, flags, next);
+            if (found < 0) {
+                continue;
+            }
+            if (found > next) {
+                throw new ClarawrException("Put " + flags[next] + " before " + flags[found] + " please.");
+            }
+
+            String segment = text.substring(valueStart, Math.max(valueStart, i - 1));
+            if (next == 0) {
+                description = segment;
+            } else {
+                values[next - 1] = requireValue(segment, flags[next - 1]);
+            }
+            valueStart = i + flags[next].length();
+            i = valueStart - 1;
+            next++;
+        }
+
+        if (next < flags.length) {
+            throw new ClarawrException("I can't find " + flags[next] + " in there. Did you forget it?");
+        }
+        values[flags.length - 1] = requireValue(text.substring(valueStart), flags[flags.length - 1]);
+        if (description.isBlank()) {
+            throw new ClarawrException("The description cannot be empty *sniffs* what is the task about?");
+        }
+        return new TaskArguments(description, flags, values);
+    }
+
+    /**
+     * Returns the index of the flag among the unread ones that starts at the given position, or -1 if there is none.
+     */
+    private static int findFlag(String text, int position, String[] flags, int next) {
+        for (int i = next; i < flags.length; i++) {
+            int end = position + flags[i].length();
+            if (text.startsWith(flags[i], position) && (end == text.length() || text.charAt(end) == ' ')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String requireValue(String segment, String flag) throws ClarawrException {
+        String value = segment.trim();
+        if (value.isEmpty()) {
+            throw new ClarawrException("There's nothing after " + flag + ". What goes there?");
+        }
+        return value;
+    }
+
+    /**
+     * Returns the text before the first flag.
+     *
+     * @return The description.
+     */
+    String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns the value given after a flag.
+     *
+     * @param flag One of the flags the arguments were parsed with.
+     * @return The value of the flag.
+     */
+    String get(String flag) {
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i].equals(flag)) {
+                return values[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown flag: " + flag);
+    }
+}
@@ -0,0 +1,259 @@
+package clarawr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Encodes tasks to and decodes tasks from the compact binary file format.
+ * Every file starts with a magic number and a format version. Each task is stored as a type tag,
+ * a done flag, its ID, a length-prefixed UTF-8 description and, for deadlines and events, its times
+ * as minutes since the epoch. No dates are formatted or parsed along the way.
+ * Snapshots end with a CRC32C checksum of everything before it, so a damaged snapshot is never mistaken for a good one.
+ * Files of version 1, written before tasks had IDs, can still be read; their tasks come back with ID 0.
+ * Files of version 2 hold the same records as the current version, but their snapshots have no checksum.
+ */
+class TaskCodec {
+    static final int MAGIC = 0x434C5257; // "CLRW"
+    static final byte VERSION = 3;
+    static final byte VERSION_WITHOUT_IDS = 1;
+    static final byte VERSION_WITHOUT_CHECKSUM = 2;
+    static final int HEADER_LENGTH = 5;
+    static final int CHECKSUM_LENGTH = 4;
+
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+
+    /**
+     * Writes the magic number and format version.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the header cannot be written.
+     */
+    static void writeHeader(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Reads and checks the magic number and format version.
+     *
+     * @param in The input to read from.
+     * @return The format version of the file.
+     * @throws IOException If the header is missing or the version is not supported.
+     */
+    static byte readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a Clarawr task file.");
+        }
+        byte version = in.readByte();
+        if (version < VERSION_WITHOUT_IDS || version > VERSION) {
+            throw new IOException("Unsupported task file version: " + version);
+        }
+        return version;
+    }
+
+    /**
+     * Checks whether a file starts with the binary header.
+     * Files that do not are treated as the older text format.
+     *
+     * @param file The file to check.
+     * @return True if the file is in the binary format.
+     */
+    static boolean isBinary(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the binary header of the current format version.
+     * Files that do not are rewritten after they are loaded.
+     *
+     * @param file The file to check.
+     * @return True if the file is in the current binary format.
+     */
+    static boolean isCurrentVersion(File file) {
+        return readVersion(file) == VERSION;
+    }
+
+    /**
+     * Returns the format version a file starts with.
+     *
+     * @param file The file to check.
+     * @return The format version, or 0 if the file is in the older text format or cannot be read.
+     */
+    static byte readVersion(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC ? in.readByte() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Writes a single task.
+     *
+     * @param out The output to write to.
+     * @param task The task to write.
+     * @throws IOException If the task cannot be written.
+     */
+    static void writeTask(DataOutput out, Task task) throws IOException {
+        assert task != null : "Task cannot be null";
+
+        switch (task.type) {
+        case TODO:
+            out.writeByte(TODO);
+            break;
+        case DEADLINE:
+            out.writeByte(DEADLINE);
+            break;
+        case EVENT:
+            out.writeByte(EVENT);
+            break;
+        default:
+            throw new IOException("Unknown task type: " + task.type);
+        }
+
+        out.writeBoolean(task.isDone());
+        out.writeLong(task.getId());
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(description.length);
+        out.write(description);
+
+        if (task instanceof Deadline) {
+            out.writeLong(toEpochMinute(((Deadline) task).getDeadline()));
+        } else if (task instanceof Event) {
+            out.writeLong(toEpochMinute(((Event) task).getFrom()));
+            out.writeLong(toEpochMinute(((Event) task).getTo()));
+        }
+    }
+
+    /**
+     * Reads a single task in the current format version.
+     *
+     * @param in The input to read from.
+     * @return The decoded task.
+     * @throws IOException If the input ends early or holds an unknown type tag.
+     */
+    static Task readTask(DataInput in) throws IOException {
+        return readTask(in, VERSION);
+    }
+
+    /**
+     * Reads a single task written in the given format version.
+     *
+     * @param in The input to read from.
+     * @param version The format version the task was written in.
+     * @return The decoded task, with ID 0 if the version has no IDs.
+     * @throws IOException If the input ends early or holds an unknown type tag.
+     */
+    static Task readTask(DataInput in, byte version) throws IOException {
+        byte tag = in.readByte();
+        boolean isDone = in.readBoolean();
+        long id = version == VERSION_WITHOUT_IDS ? 0 : in.readLong();
+        int length = in.readInt();
+        if (length <= 0) {
+            throw new IOException("Invalid description length: " + length);
+        }
+        byte[] description = new byte[length];
+        in.readFully(description);
+        String text = new String(description, StandardCharsets.UTF_8);
+
+        Task task;
+        switch (tag) {
+        case TODO:
+            task = new Todo(text, isDone);
+            break;
+        case DEADLINE:
+            task = new Deadline(text, fromEpochMinute(in.readLong()), isDone);
+            break;
+        case EVENT:
+            LocalDateTime from = fromEpochMinute(in.readLong());
+            LocalDateTime to = fromEpochMinute(in.readLong());
+            task = new Event(text, from, to, isDone);
+            break;
+        default:
+            throw new IOException("Unknown task type tag: " + tag);
+        }
+        task.setId(id);
+        return task;
+    }
+
+    /**
+     * Returns the ID of the task starting at the given offset, without decoding it.
+     *
+     * @param buffer The buffer holding encoded tasks.
+     * @param offset The offset of the task's type tag.
+     * @return The ID of the task.
+     */
+    static long readId(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 2);
+    }
+
+    /**
+     * Returns the encoded length of the task starting at the given offset, without decoding it.
+     * Only tasks in the current format version can be measured.
+     *
+     * @param buffer The buffer holding encoded tasks.
+     * @param offset The offset of the task's type tag.
+     * @return The number of bytes the task occupies.
+     * @throws IOException If the type tag or description length is invalid.
+     */
+    static int recordLength(ByteBuffer buffer, int offset) throws IOException {
+        byte tag = buffer.get(offset);
+        int length = buffer.getInt(offset + 10);
+        if (length <= 0) {
+            throw new IOException("Invalid description length: " + length);
+        }
+
+        switch (tag) {
+        case TODO:
+            return 14 + length;
+        case DEADLINE:
+            return 14 + length + 8;
+        case EVENT:
+            return 14 + length + 16;
+        default:
+            throw new IOException("Unknown task type tag: " + tag);
+        }
+    }
+
+    /**
+     * Encodes a single task into a new byte array.
+     *
+     * @param task The task to encode.
+     * @return The encoded task.
+     */
+    static byte[] encode(Task task) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + task.getDescription().length());
+        try {
+            writeTask(new DataOutputStream(bytes), task);
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,44 @@
+package clarawr;
+
+import java.util.function.Predicate;
+
+/**
+ * Represents the conditions given to the list command, such as only done tasks or only events.
+ */
+class TaskFilter implements Predicate<Task> {
+    private final Boolean isDone;
+    private final TaskType type;
+
+    /**
+     * Constructs a filter.
+     *
+     * @param isDone The status a task must have, or null for either status.
+     * @param type The type a task must have, or null for any type.
+     */
+    TaskFilter(Boolean isDone, TaskType type) {
+        this.isDone = isDone;
+        this.type = type;
+    }
+
+    @Override
+    public boolean test(Task task) {
+        return (isDone == null || task.isDone() == isDone) && (type == null || task.type == type);
+    }
+
+    /**
+     * Returns the words that select this filter in the list command, e.g. "undone deadline".
+     *
+     * @return The filter words separated by spaces.
+     */
+    @Override
+    public String toString() {
+        StringBuilder words = new StringBuilder();
+        if (isDone != null) {
+            words.append(isDone ? "done" : "undone");
+        }
+        if (type != null) {
+            words.append(words.length() > 0 ? " " : "").append(type.name().toLowerCase());
+        }
+        return words.toString();
+    }
+}
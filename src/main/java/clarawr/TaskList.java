@@ -1,77 +1,265 @@
 package clarawr;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
 
 /**
  * Represents a list of tasks, providing methods to add, delete, and modify tasks.
- * This class manages task operations and ensures tasks are saved to a file immediately after modifications.
+ * This class manages task operations and ensures every modification is recorded in the storage journal.
+ * It is safe to use from several threads. The tasks are held in an immutable {@link TaskTree}:
+ * readers take the current version without locking, while writers take turns, each publishing a new version.
+ * Marking a task replaces it with a marked copy rather than changing it, so a version once taken never changes.
+ * Searches use indexes that are updated in place, so they take turns with the writers.
+ * Every added task is given the next unused ID, so a task can be found by ID no matter how many tasks before it were deleted.
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    private volatile TaskTree tasks = TaskTree.EMPTY;
+    private final Storage storage;
+    private KeywordIndex keywordIndex;
+    private DateIndex dateIndex;
+    private Agenda agenda;
+    private IntervalTree events;
+    private HashMap<Task, Integer> taskCounts;
+    private long nextId = 1;
 
     /**
-     * Constructs an empty task list.
+     * Constructs an empty task list that is kept in memory only.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(null);
     }
 
     /**
-     * Adds a task to the task list.
-     * After adding, the task list is saved to a file.
+     * Constructs an empty task list whose modifications are recorded by the given storage.
+     *
+     * @param storage The storage to record modifications in, or null to keep the list in memory only.
+     */
+    public TaskList(Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Adds a task to the task list and gives it the next unused ID.
+     * After adding, the addition is recorded in the storage journal.
      *
      * @param task The task to add.
      */
-    public void addTask(Task task) {
+    public synchronized void addTask(Task task) {
 
         assert task != null : "Task cannot be null";
 
-        tasks.add(task);
-        Storage.saveTasksToFile(tasks);
+        task.setId(nextId++);
+        tasks = tasks.append(task);
+        if (keywordIndex != null) {
+            keywordIndex.add(task);
+        }
+        if (dateIndex != null) {
+            dateIndex.add(task);
+        }
+        if (agenda != null) {
+            agenda.add(task);
+        }
+        if (events != null) {
+            events.add(task);
+        }
+        if (taskCounts != null) {
+            taskCounts.merge(task, 1, Integer::sum);
+        }
+        if (storage != null) {
+            storage.logAdd(task);
+            storage.compactIfNeeded(tasks);
+        }
     }
 
     /**
      * Marks the specified task as done.
-     * After marking, the task list is saved to a file.
+     * After marking, the change is recorded in the storage journal.
      *
      * @param index The index of the task to mark as done.
+     * @throws IndexOutOfBoundsException If there is no task at the index.
      */
-    public void markTaskAsDone(int index) {
+    public synchronized void markTaskAsDone(int index) {
 
-        assert index >= 0 && index < tasks.size() : "Index out of range";
+        Objects.checkIndex(index, tasks.size());
 
-        Task task = tasks.get(index);
-        task.markAsDone();
-        Storage.saveTasksToFile(tasks);
+        setDone(index, true);
+        if (storage != null) {
+            storage.logMarkDone(index);
+            storage.compactIfNeeded(tasks);
+        }
     }
 
     /**
      * Marks the specified task as undone.
-     * After marking, the task list is saved to a file.
+     * After marking, the change is recorded in the storage journal.
      *
      * @param index The index of the task to mark as undone.
+     * @throws IndexOutOfBoundsException If there is no task at the index.
      */
-    public void markTaskAsUndone(int index) {
+    public synchronized void markTaskAsUndone(int index) {
 
-        assert index >= 0 && index < tasks.size() : "Index out of range";
+        Objects.checkIndex(index, tasks.size());
 
-        Task task = tasks.get(index);
-        task.markUndone();
-        Storage.saveTasksToFile(tasks);  // Save tasks immediately after modification
+        setDone(index, false);
+        if (storage != null) {
+            storage.logMarkUndone(index);  // Record the change immediately after modification
+            storage.compactIfNeeded(tasks);
+        }
     }
 
     /**
      * Deletes the specified task from the task list.
-     * After deleting, the task list is saved to a file.
+     * After deleting, the deletion is recorded in the storage journal.
      *
      * @param index The index of the task to delete.
+     * @throws IndexOutOfBoundsException If there is no task at the index.
+     */
+    public synchronized void deleteTask(int index) {
+
+        Objects.checkIndex(index, tasks.size());
+
+        Task task = tasks.get(index);
+        tasks = tasks.delete(index);
+        if (keywordIndex != null) {
+            keywordIndex.remove(task, tasks);
+        }
+        if (dateIndex != null) {
+            dateIndex.remove(task);
+        }
+        if (agenda != null) {
+            agenda.remove(task);
+        }
+        if (events != null) {
+            events.remove(task);
+        }
+        if (taskCounts != null) {
+            taskCounts.computeIfPresent(task, (key, count) -> count == 1 ? null : count - 1);
+        }
+        if (storage != null) {
+            storage.logDelete(index);
+            storage.compactIfNeeded(tasks);
+        }
+    }
+
+    /**
+     * Marks several tasks as done at once.
+     * The whole change is recorded in the storage journal as a single record.
+     *
+     * @param indexes The zero-based indexes of the tasks, in increasing order without repeats.
+     * @throws IndexOutOfBoundsException If there is no task at one of the indexes, in which case none is marked.
+     */
+    public synchronized void markTasksAsDone(int[] indexes) {
+        assert indexes != null : "Indexes cannot be null";
+
+        checkIndexes(indexes);
+        for (int index : indexes) {
+            setDone(index, true);
+        }
+        if (storage != null) {
+            storage.logMarkDone(indexes);
+            storage.compactIfNeeded(tasks);
+        }
+    }
+
+    /**
+     * Marks several tasks as undone at once.
+     * The whole change is recorded in the storage journal as a single record.
+     *
+     * @param indexes The zero-based indexes of the tasks, in increasing order without repeats.
+     * @throws IndexOutOfBoundsException If there is no task at one of the indexes, in which case none is marked.
      */
-    public void deleteTask(int index) {
+    public synchronized void markTasksAsUndone(int[] indexes) {
+        assert indexes != null : "Indexes cannot be null";
+
+        checkIndexes(indexes);
+        for (int index : indexes) {
+            setDone(index, false);
+        }
+        if (storage != null) {
+            storage.logMarkUndone(indexes);
+            storage.compactIfNeeded(tasks);
+        }
+    }
 
-        assert index >= 0 && index < tasks.size() : "Index out of range";
+    private void checkIndexes(int[] indexes) {
+        int size = tasks.size();
+        for (int index : indexes) {
+            Objects.checkIndex(index, size);
+        }
+    }
 
-        tasks.remove(index);
-        Storage.saveTasksToFile(tasks);
+    /**
+     * Replaces the task at the given index with a copy that has the given status,
+     * and swaps the copy into the indexes that hold the task itself.
+     * The keyword index and duplicate counts go by ID and description, which do not change.
+     */
+    private void setDone(int index, boolean isDone) {
+        Task task = tasks.get(index);
+        if (task.isDone() == isDone) {
+            return;
+        }
+        Task marked = task.withDone(isDone);
+        tasks = tasks.replace(index, marked);
+        if (dateIndex != null) {
+            dateIndex.remove(task);
+            dateIndex.add(marked);
+        }
+        if (agenda != null) {
+            agenda.remove(task);
+            agenda.add(marked);
+        }
+        if (events != null) {
+            events.remove(task);
+            events.add(marked);
+        }
+    }
+
+    /**
+     * Deletes several tasks at once, in a single pass over the list rather than one delete per task.
+     * The whole change is recorded in the storage journal as a single record.
+     *
+     * @param indexes The zero-based indexes of the tasks, in increasing order without repeats.
+     * @return The deleted tasks, in list order.
+     * @throws IndexOutOfBoundsException If there is no task at one of the indexes, in which case none is deleted.
+     */
+    public synchronized List<Task> deleteTasks(int[] indexes) {
+        assert indexes != null : "Indexes cannot be null";
+
+        List<Task> deleted = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            deleted.add(tasks.get(index));
+        }
+        tasks = tasks.deleteAll(indexes);
+        if (keywordIndex != null) {
+            keywordIndex.removeAll(deleted, tasks);
+        }
+        if (dateIndex != null) {
+            dateIndex.removeAll(deleted);
+        }
+        for (Task task : deleted) {
+            if (agenda != null) {
+                agenda.remove(task);
+            }
+            if (events != null) {
+                events.remove(task);
+            }
+        }
+        if (taskCounts != null) {
+            for (Task task : deleted) {
+                taskCounts.computeIfPresent(task, (key, count) -> count == 1 ? null : count - 1);
+            }
+        }
+        if (storage != null) {
+            storage.logDelete(indexes);
+            storage.compactIfNeeded(tasks);
+        }
+        return deleted;
     }
 
     /**
@@ -79,33 +267,297 @@ public class TaskList {
      *
      * @param index The index of the task to retrieve.
      * @return The task at the specified index.
+     * @throws IndexOutOfBoundsException If there is no task at the index.
      */
     public Task getTask(int index) {
+        return tasks.get(index);
+    }
 
-        assert index >= 0 && index < tasks.size() : "Index out of range";
+    /**
+     * Finds the position of the task with the given ID, without decoding the tasks searched past.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based index of the task, or -1 if no task in the list has the ID.
+     */
+    public int indexOf(long id) {
+        return tasks.indexOfId(id);
+    }
 
-        return tasks.get(index);
+    /**
+     * Visits the tasks that pass the filter in list order, skipping the first few of them.
+     * Without a filter the skipped tasks are never touched, so visiting a late page costs no more than an early one.
+     *
+     * @param filter The condition a task must meet to be visited, or null to visit every task.
+     * @param skip The number of matching tasks to skip.
+     * @param limit The largest number of matching tasks to visit.
+     * @param visitor Receives each visited task with its zero-based index in the list.
+     * @return True if more matching tasks follow the last one visited.
+     */
+    public boolean forEachTask(Predicate<Task> filter, int skip, int limit, ObjIntConsumer<Task> visitor) {
+        assert skip >= 0 && limit >= 0 : "Skip and limit cannot be negative";
+        assert visitor != null : "Visitor cannot be null";
+
+        TaskTree snapshot = tasks;
+        int size = snapshot.size();
+        if (filter == null) {
+            int end = (int) Math.min(size, (long) skip + limit);
+            if (skip < end) {
+                snapshot.forEach(skip, end, visitor);
+            }
+            return end < size;
+        }
+
+        int matched = 0;
+        for (int i = 0; i < size; i++) {
+            Task task = snapshot.get(i);
+            if (!filter.test(task)) {
+                continue;
+            }
+            if (matched >= (long) skip + limit) {
+                return true;
+            }
+            if (matched >= skip) {
+                visitor.accept(task, i);
+            }
+            matched++;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain a word starting with every word of the keyword.
+     * The keyword index is built on the first search and kept up to date from then on.
+     *
+     * @param keyword The words to search for. Case-insensitive.
+     * @return The zero-based indexes of the matching tasks, in list order.
+     */
+    public synchronized int[] findTasks(String keyword) {
+        assert keyword != null : "Keyword cannot be null";
+
+        if (keywordIndex == null) {
+            keywordIndex = new KeywordIndex(tasks);
+        }
+        return keywordIndex.find(keyword, tasks);
+    }
+
+    /**
+     * Checks whether an equal task is already in the list, using the same identity as {@link Task#equals}.
+     * Tasks are counted in a hash map built on the first check, so each check takes constant time.
+     * Counts rather than a set are kept because a loaded file may already hold duplicates.
+     *
+     * @param task The task to look for.
+     * @return True if an equal task is in the list.
+     */
+    public synchronized boolean contains(Task task) {
+        assert task != null : "Task cannot be null";
+
+        if (taskCounts == null) {
+            taskCounts = new HashMap<>(Math.max(16, tasks.size() * 2));
+            for (Task existingTask : tasks) {
+                taskCounts.merge(existingTask, 1, Integer::sum);
+            }
+        }
+        return taskCounts.containsKey(task);
+    }
+
+    /**
+     * Retrieves the deadlines due and events taking place on the given date.
+     * The date index is built on the first lookup and kept up to date from then on.
+     * Events are looked up in the interval tree, so an event spanning years costs no more than one spanning an hour.
+     *
+     * @param date The date to look up.
+     * @return The matching tasks, in list order.
+     */
+    public synchronized List<Task> getTasksOn(LocalDate date) {
+        assert date != null : "Date cannot be null";
+
+        return getDateIndex().getTasksOn(date);
+    }
+
+    /**
+     * Retrieves the deadlines due and events taking place between two dates, inclusive.
+     *
+     * @param from The first date of the range.
+     * @param to The last date of the range.
+     * @return The matching tasks, ordered by the first day they fall on within the range.
+     */
+    public synchronized List<Task> getTasksBetween(LocalDate from, LocalDate to) {
+        assert from != null && to != null : "Dates cannot be null";
+
+        return getDateIndex().getTasksBetween(from, to);
+    }
+
+    /**
+     * Retrieves the first undone deadlines and events due or starting at or after the given time.
+     * The agenda is built on the first lookup and kept up to date from then on,
+     * so each lookup only costs a search plus the number of tasks returned.
+     *
+     * @param from The earliest time to include.
+     * @param limit The most tasks to return.
+     * @return The matching tasks, earliest first.
+     */
+    public synchronized List<Task> getUpcomingTasks(LocalDateTime from, int limit) {
+        assert from != null : "Time cannot be null";
+        assert limit > 0 : "Limit must be positive";
+
+        return getAgenda().getFrom(from, limit);
+    }
+
+    /**
+     * Retrieves the undone deadlines and events due or starting at or after one time and before another.
+     *
+     * @param from The earliest time to include.
+     * @param until The time the tasks must come before.
+     * @return The matching tasks, earliest first.
+     */
+    public synchronized List<Task> getUpcomingTasks(LocalDateTime from, LocalDateTime until) {
+        assert from != null && until != null : "Times cannot be null";
+        assert from.isBefore(until) : "Range start must be before range end";
+
+        return getAgenda().getBetween(from, until);
+    }
+
+    /**
+     * Retrieves the undone deadlines due and events starting before the given time.
+     *
+     * @param before The time the tasks must come before, usually now.
+     * @return The matching tasks, earliest first.
+     */
+    public synchronized List<Task> getOverdueTasks(LocalDateTime before) {
+        assert before != null : "Time cannot be null";
+
+        return getAgenda().getBefore(before);
+    }
+
+    /**
+     * Retrieves the events that overlap a stretch of time, that is, those that start before it ends and end after it starts.
+     * The events are kept in an interval tree built on the first lookup and kept up to date from then on.
+     *
+     * @param from The start of the stretch.
+     * @param to The end of the stretch.
+     * @return The overlapping events, in order of start time.
+     */
+    public synchronized List<Event> getOverlappingEvents(LocalDateTime from, LocalDateTime to) {
+        assert from != null && to != null : "Times cannot be null";
+
+        return getEvents().getOverlapping(from, to);
+    }
+
+    /**
+     * Retrieves every pair of events that overlap each other.
+     *
+     * @return The clashing pairs, each with the earlier-starting event first, ordered by the start of the later one.
+     */
+    public synchronized List<Event[]> getConflicts() {
+        return getEvents().findConflicts();
+    }
+
+    /**
+     * Retrieves the stretches of time between two times that no event takes up.
+     *
+     * @param from The start of the time to look at.
+     * @param until The end of the time to look at.
+     * @return The free stretches in order, each as its start and end time.
+     */
+    public synchronized List<LocalDateTime[]> getFreeTimes(LocalDateTime from, LocalDateTime until) {
+        assert from != null && until != null : "Times cannot be null";
+        assert from.isBefore(until) : "Range start must be before range end";
+
+        List<LocalDateTime[]> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (Event event : getEvents().getOverlapping(from, until)) {
+            if (event.getFrom().isAfter(freeFrom)) {
+                free.add(new LocalDateTime[] { freeFrom, event.getFrom() });
+            }
+            if (event.getTo().isAfter(freeFrom)) {
+                freeFrom = event.getTo();
+            }
+        }
+        if (freeFrom.isBefore(until)) {
+            free.add(new LocalDateTime[] { freeFrom, until });
+        }
+        return free;
+    }
+
+    private IntervalTree getEvents() {
+        if (events == null) {
+            events = new IntervalTree(tasks);
+        }
+        return events;
+    }
+
+    private Agenda getAgenda() {
+        if (agenda == null) {
+            agenda = new Agenda(tasks);
+        }
+        return agenda;
+    }
+
+    private DateIndex getDateIndex() {
+        if (dateIndex == null) {
+            dateIndex = new DateIndex(tasks, getEvents());
+        }
+        return dateIndex;
     }
 
     /**
      * Retrieves all tasks in the task list.
+     * The returned list is a snapshot that cannot be modified and does not change when the task list does,
+     * not even when one of its tasks is marked, since marking puts a marked copy in the list instead.
      *
-     * @return An ArrayList of all tasks in the task list.
+     * @return A list of all tasks in the task list.
      */
-    public ArrayList<Task> getAllTasks() {
+    public List<Task> getAllTasks() {
         return tasks;
     }
 
     /**
-     * Adds all tasks from another list to this task list.
+     * Replaces the contents of this task list with the tasks saved by its storage.
+     * The loaded list is adopted as is, so tasks that are decoded lazily stay undecoded until used.
+     */
+    public synchronized void loadFromStorage() {
+        assert storage != null : "Task list has no storage to load from";
+
+        this.tasks = TaskTree.of(storage.loadTasksFromFile());
+        this.nextId = storage.getNextId();
+        clearIndexes();
+    }
+
+    /**
+     * Adds all tasks from another list to this task list, giving each the next unused ID in order.
      *
      * @param tasks The list of tasks to add.
      */
-    public void addAll(ArrayList<Task> tasks) {
+    public synchronized void addAll(List<Task> tasks) {
 
         assert tasks != null : "Tasks list cannot be null";
 
-        this.tasks.addAll(tasks);
+        List<Task> added = List.copyOf(tasks);
+        for (Task task : added) {
+            task.setId(nextId++);
+        }
+        this.tasks = this.tasks.appendAll(added);
+        clearIndexes();
+    }
+
+    /**
+     * Drops the search indexes after a bulk change. They are rebuilt on the next search.
+     */
+    private void clearIndexes() {
+        keywordIndex = null;
+        dateIndex = null;
+        agenda = null;
+        events = null;
+        taskCounts = null;
+    }
+
+    /**
+     * Returns the ID the next added task will be given. Every task in the list has a smaller ID.
+     *
+     * @return The next unused ID.
+     */
+    public synchronized long getNextId() {
+        return nextId;
     }
 
     /**
@@ -0,0 +1,482 @@
+package clarawr;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Represents an immutable list of tasks that is changed by making a new version of it.
+ * The list is a balanced tree of pieces, where each piece is either one task or a run of tasks from a source list,
+ * such as a memory-mapped snapshot. A change copies only the path from the root to the piece it touches
+ * and shares everything else, so appending or removing a task takes time logarithmic in the number of pieces,
+ * and earlier versions stay valid for anyone still reading them.
+ * A loaded snapshot starts out as a single piece, so none of its tasks are decoded until they are used.
+ * Task IDs grow along the list, so a task is also found by its ID in logarithmic time, by the same descent.
+ */
+class TaskTree extends AbstractList<Task> implements RandomAccess {
+    static final TaskTree EMPTY = new TaskTree(null);
+
+    private final Node root;
+
+    private TaskTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates a tree holding the given tasks as a single piece, without copying or decoding them.
+     * The source must never be changed afterwards.
+     *
+     * @param source The tasks, in order.
+     * @return The tree of the tasks.
+     */
+    static TaskTree of(List<Task> source) {
+        assert source != null : "Source list cannot be null";
+
+        return EMPTY.appendAll(source);
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index < leftSize + node.length) {
+                return node.get(index - leftSize);
+            } else {
+                index -= leftSize + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Finds the position of the task with the given ID.
+     * The search descends the tree by comparing against the IDs at the ends of each piece,
+     * then searches within the piece, reading the IDs of mapped tasks without decoding them.
+     * This relies on IDs growing along the list, which holds because tasks only ever get new IDs at the end.
+     *
+     * @param id The ID to look for.
+     * @return The zero-based index of the task, or -1 if no task has the ID.
+     */
+    int indexOfId(long id) {
+        Node node = root;
+        int offset = 0;
+        while (node != null) {
+            if (id < node.getId(0)) {
+                node = node.left;
+            } else if (id > node.getId(node.length - 1)) {
+                offset += size(node.left) + node.length;
+                node = node.right;
+            } else {
+                int index = node.indexOfId(id);
+                return index < 0 ? -1 : offset + size(node.left) + index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a new version of the list with a task added to the end.
+     *
+     * @param task The task to add.
+     * @return The new version of the list.
+     */
+    TaskTree append(Task task) {
+        assert task != null : "Task cannot be null";
+
+        return new TaskTree(append(root, new Node(task, null, 0, 1, null, null)));
+    }
+
+    /**
+     * Returns a new version of the list with a run of tasks added to the end as a single piece.
+     * The source must never be changed afterwards.
+     *
+     * @param source The tasks to add, in order.
+     * @return The new version of the list.
+     */
+    TaskTree appendAll(List<Task> source) {
+        assert source != null : "Source list cannot be null";
+
+        if (source.isEmpty()) {
+            return this;
+        }
+        return new TaskTree(append(root, new Node(null, source, 0, source.size(), null, null)));
+    }
+
+    /**
+     * Returns a new version of the list with the task at the given index replaced by another.
+     * If the task is part of a run, the run splits around it, leaving the other tasks of the run undecoded.
+     *
+     * @param index The zero-based index of the task to replace.
+     * @param task The task to put in its place.
+     * @return The new version of the list.
+     */
+    TaskTree replace(int index, Task task) {
+        checkIndex(index);
+        assert task != null : "Task cannot be null";
+
+        return new TaskTree(replace(root, index, task));
+    }
+
+    /**
+     * Returns a new version of the list without the task at the given index.
+     *
+     * @param index The zero-based index of the task to remove.
+     * @return The new version of the list.
+     */
+    TaskTree delete(int index) {
+        checkIndex(index);
+
+        return new TaskTree(remove(root, index));
+    }
+
+    /**
+     * Returns a new version of the list without the tasks at the given indexes.
+     * A few tasks are removed one at a time. Otherwise every piece is visited once, in order,
+     * keeping the runs between the removed tasks, and the kept runs are built into a new balanced tree,
+     * so the cost does not depend on how many tasks are removed.
+     *
+     * @param indexes The zero-based indexes of the tasks to remove, in increasing order without repeats.
+     * @return The new version of the list.
+     */
+    TaskTree deleteAll(int[] indexes) {
+        assert indexes != null : "Indexes cannot be null";
+        for (int i = 0; i < indexes.length; i++) {
+            assert i == 0 || indexes[i - 1] < indexes[i] : "Indexes must be increasing";
+            checkIndex(indexes[i]);
+        }
+
+        if ((long) indexes.length * height(root) < getPieceCount()) {
+            TaskTree tree = this;
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                tree = tree.delete(indexes[i]);
+            }
+            return tree;
+        }
+
+        List<Node> kept = new ArrayList<>();
+        keep(root, 0, indexes, 0, kept);
+        return new TaskTree(build(kept, 0, kept.size()));
+    }
+
+    /**
+     * Returns the number of pieces the list is made of.
+     * This starts at one for a loaded snapshot and grows with each change.
+     *
+     * @return The number of pieces.
+     */
+    int getPieceCount() {
+        return pieceCount(root);
+    }
+
+    /**
+     * Visits the tasks in a range of indexes, in order, without a separate lookup for each one.
+     *
+     * @param from The index of the first task to visit.
+     * @param to The index after the last task to visit.
+     * @param visitor Receives each task with its index.
+     */
+    void forEach(int from, int to, ObjIntConsumer<Task> visitor) {
+        assert from >= 0 && from <= to && to <= size() : "Range out of bounds";
+
+        visit(root, 0, from, to, visitor);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Task> action) {
+        forEach(0, size(), (task, index) -> action.accept(task));
+    }
+
+    /**
+     * Writes every task in the binary task format.
+     * Runs of a memory-mapped snapshot are copied byte for byte where their tasks were never decoded.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the tasks cannot be written.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        writeTo(root, out);
+    }
+
+    private static void writeTo(Node node, DataOutput out) throws IOException {
+        if (node == null) {
+            return;
+        }
+        writeTo(node.left, out);
+        if (node.task != null) {
+            TaskCodec.writeTask(out, node.task);
+        } else if (node.source instanceof MappedTaskList) {
+            ((MappedTaskList) node.source).writeTo(out, node.start, node.start + node.length);
+        } else {
+            for (int i = 0; i < node.length; i++) {
+                TaskCodec.writeTask(out, node.get(i));
+            }
+        }
+        writeTo(node.right, out);
+    }
+
+    private static void visit(Node node, int offset, int from, int to, ObjIntConsumer<Task> visitor) {
+        if (node == null || from >= offset + node.size || to <= offset) {
+            return;
+        }
+
+        int leftSize = size(node.left);
+        visit(node.left, offset, from, to, visitor);
+
+        int pieceOffset = offset + leftSize;
+        int first = Math.max(from, pieceOffset);
+        int last = Math.min(to, pieceOffset + node.length);
+        for (int i = first; i < last; i++) {
+            visitor.accept(node.get(i - pieceOffset), i);
+        }
+
+        visit(node.right, pieceOffset + node.length, from, to, visitor);
+    }
+
+    /**
+     * Collects, in order, the runs of each piece that lie between the removed indexes.
+     *
+     * @return The position in the indexes of the first one after this subtree.
+     */
+    private static int keep(Node node, int offset, int[] indexes, int next, List<Node> kept) {
+        if (node == null) {
+            return next;
+        }
+        next = keep(node.left, offset, indexes, next, kept);
+
+        int pieceOffset = offset + size(node.left);
+        int pieceEnd = pieceOffset + node.length;
+        int from = pieceOffset;
+        while (next < indexes.length && indexes[next] < pieceEnd) {
+            if (indexes[next] > from) {
+                kept.add(node.slice(from - pieceOffset, indexes[next] - pieceOffset));
+            }
+            from = indexes[next] + 1;
+            next++;
+        }
+        if (from < pieceEnd) {
+            kept.add(node.slice(from - pieceOffset, node.length));
+        }
+
+        return keep(node.right, pieceEnd, indexes, next, kept);
+    }
+
+    /**
+     * Builds a perfectly balanced tree of the given pieces, which must have no children of their own.
+     */
+    private static Node build(List<Node> pieces, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return pieces.get(middle).withChildren(build(pieces, from, middle), build(pieces, middle + 1, to));
+    }
+
+    private static Node append(Node node, Node piece) {
+        if (node == null) {
+            return piece;
+        }
+        return balance(node.withChildren(node.left, append(node.right, piece)));
+    }
+
+    private static Node prepend(Node node, Node piece) {
+        if (node == null) {
+            return piece;
+        }
+        return balance(node.withChildren(prepend(node.left, piece), node.right));
+    }
+
+    private static Node remove(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.withChildren(remove(node.left, index), node.right));
+        }
+        index -= leftSize;
+        if (index >= node.length) {
+            return balance(node.withChildren(node.left, remove(node.right, index - node.length)));
+        }
+
+        // The task is in this node's piece, which splits into the runs before and after it
+        Node before = index == 0 ? null : node.slice(0, index);
+        Node after = index == node.length - 1 ? null : node.slice(index + 1, node.length);
+        if (before != null && after != null) {
+            return balance(before.withChildren(node.left, prepend(node.right, after)));
+        } else if (before != null) {
+            return balance(before.withChildren(node.left, node.right));
+        } else if (after != null) {
+            return balance(after.withChildren(node.left, node.right));
+        }
+        return join(node.left, node.right);
+    }
+
+    private static Node replace(Node node, int index, Task task) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.withChildren(replace(node.left, index, task), node.right));
+        }
+        index -= leftSize;
+        if (index >= node.length) {
+            return balance(node.withChildren(node.left, replace(node.right, index - node.length, task)));
+        }
+
+        // The task is in this node's piece, which splits into the runs before and after it
+        Node left = index == 0 ? node.left : append(node.left, node.slice(0, index));
+        Node right = index == node.length - 1 ? node.right : prepend(node.right, node.slice(index + 1, node.length));
+        return balance(new Node(task, null, 0, 1, left, right));
+    }
+
+    /**
+     * Joins two subtrees whose heights differ by at most one, where every task of the first comes before the second.
+     */
+    private static Node join(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        Node first = right;
+        while (first.left != null) {
+            first = first.left;
+        }
+        return balance(first.withChildren(left, removeFirst(right)));
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.withChildren(removeFirst(node.left), node.right));
+    }
+
+    private static Node balance(Node node) {
+        int difference = height(node.left) - height(node.right);
+        if (difference > 1) {
+            Node left = node.left;
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left);
+            }
+            return rotateRight(node.withChildren(left, node.right));
+        }
+        if (difference < -1) {
+            Node right = node.right;
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right);
+            }
+            return rotateLeft(node.withChildren(node.left, right));
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        return right.withChildren(node.withChildren(node.left, right.left), right.right);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        return left.withChildren(left.left, node.withChildren(left.right, node.right));
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int pieceCount(Node node) {
+        return node == null ? 0 : node.pieceCount;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    /**
+     * Represents one piece of the list, with the subtrees of the pieces before and after it.
+     * A piece is either a single task or a run of a source list.
+     */
+    private static class Node {
+        private final Task task;
+        private final List<Task> source;
+        private final int start;
+        private final int length;
+        private final Node left;
+        private final Node right;
+        private final int size;
+        private final int height;
+        private final int pieceCount;
+
+        private Node(Task task, List<Task> source, int start, int length, Node left, Node right) {
+            this.task = task;
+            this.source = source;
+            this.start = start;
+            this.length = length;
+            this.left = left;
+            this.right = right;
+            this.size = TaskTree.size(left) + length + TaskTree.size(right);
+            this.height = Math.max(TaskTree.height(left), TaskTree.height(right)) + 1;
+            this.pieceCount = TaskTree.pieceCount(left) + 1 + TaskTree.pieceCount(right);
+        }
+
+        private Task get(int offset) {
+            return task != null ? task : source.get(start + offset);
+        }
+
+        private long getId(int offset) {
+            if (task != null) {
+                return task.getId();
+            }
+            if (source instanceof MappedTaskList) {
+                return ((MappedTaskList) source).getId(start + offset);
+            }
+            return source.get(start + offset).getId();
+        }
+
+        private int indexOfId(long id) {
+            int low = 0;
+            int high = length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleId = getId(middle);
+                if (middleId < id) {
+                    low = middle + 1;
+                } else if (middleId > id) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        private Node withChildren(Node left, Node right) {
+            if (left == this.left && right == this.right) {
+                return this;
+            }
+            return new Node(task, source, start, length, left, right);
+        }
+
+        private Node slice(int from, int to) {
+            return new Node(task, source, start + from, to - from, null, null);
+        }
+    }
+}
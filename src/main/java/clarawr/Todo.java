@@ -28,6 +28,19 @@ public class Todo extends Task {
         return " [T]" + super.toString();
     }
 
+    /**
+     * Returns a copy of the Todo task with the given completion status.
+     *
+     * @param isDone The completion status of the copy.
+     * @return The copy of the Todo task, with the same ID.
+     */
+    @Override
+    Task withDone(boolean isDone) {
+        Todo copy = new Todo(description, isDone);
+        copy.setId(id);
+        return copy;
+    }
+
     /**
      * Returns a string representation of the Todo task in a format suitable for file storage.
      *
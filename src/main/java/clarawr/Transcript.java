@@ -0,0 +1,184 @@
+package clarawr;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the chat transcript shown in the main window.
+ * Every message is appended to a history file, and only the most recent messages are kept in the shown list.
+ * When older messages have been dropped, the first item of the list is {@link Message#OLDER_MESSAGES},
+ * and asking for older messages reads the previous page back from the history file.
+ */
+class Transcript {
+    static final int DEFAULT_CAPACITY = 500;
+    static final int PAGE_SIZE = 100;
+
+    private final List<Message> shown;
+    private final File historyFile;
+    private final int capacity;
+    private boolean hasHistory;
+    private DataOutputStream out;
+    private long[] offsets = new long[64];
+    private int count;
+    private long length;
+    private int firstShown;
+
+    /**
+     * Constructs a transcript that shows its messages in the given list.
+     *
+     * @param shown The list the window displays. It is owned by the transcript from now on.
+     * @param historyFile The file every message is appended to, or null to keep no history beyond the capacity.
+     * @param capacity The number of recent messages to keep in the shown list.
+     */
+    Transcript(List<Message> shown, File historyFile, int capacity) {
+        assert shown != null && shown.isEmpty() : "Shown list must start empty";
+        assert capacity > 0 : "Capacity must be positive";
+
+        this.shown = shown;
+        this.historyFile = historyFile;
+        this.capacity = capacity;
+        this.hasHistory = historyFile != null;
+    }
+
+    /**
+     * Creates a transcript whose history is kept in a temporary file for the length of the session.
+     *
+     * @param shown The list the window displays.
+     * @return The transcript, without history if no temporary file could be created.
+     */
+    static Transcript withTemporaryHistory(List<Message> shown) {
+        File historyFile = null;
+        try {
+            historyFile = File.createTempFile("clarawr-transcript", ".log");
+            historyFile.deleteOnExit();
+        } catch (IOException e) {
+            System.out.println("Error creating transcript history. Older messages will not be kept.");
+        }
+        return new Transcript(shown, historyFile, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds a message to the end of the transcript, dropping the oldest shown messages if over capacity.
+     *
+     * @param message The message to add.
+     */
+    void add(Message message) {
+        assert message != null : "Message cannot be null";
+
+        if (hasHistory && !save(message)) {
+            // Without a complete history the dropped messages can no longer be found, so stop offering them
+            hasHistory = false;
+            if (hasOlderMessages()) {
+                shown.remove(0);
+            }
+            firstShown = 0;
+        }
+        shown.add(message);
+
+        int markerCount = hasOlderMessages() ? 1 : 0;
+        int excess = shown.size() - markerCount - capacity;
+        if (excess > 0) {
+            shown.subList(markerCount, markerCount + excess).clear();
+            if (hasHistory) {
+                firstShown += excess;
+                if (markerCount == 0) {
+                    shown.add(0, Message.OLDER_MESSAGES);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shows the page of messages just before the oldest shown message, reading it from the history file.
+     * The extra messages stay until the next message pushes the transcript back under its capacity.
+     */
+    void showOlder() {
+        if (!hasOlderMessages()) {
+            return;
+        }
+
+        int from = Math.max(0, firstShown - PAGE_SIZE);
+        List<Message> page;
+        try {
+            page = read(from, firstShown);
+        } catch (IOException e) {
+            System.out.println("Error reading transcript history.");
+            return;
+        }
+
+        shown.remove(0);
+        shown.addAll(0, page);
+        firstShown = from;
+        if (firstShown > 0) {
+            shown.add(0, Message.OLDER_MESSAGES);
+        }
+    }
+
+    /**
+     * Returns whether some messages have been dropped from the shown list and can be read back.
+     *
+     * @return true if the first shown item is {@link Message#OLDER_MESSAGES}, false otherwise.
+     */
+    boolean hasOlderMessages() {
+        return !shown.isEmpty() && shown.get(0) == Message.OLDER_MESSAGES;
+    }
+
+    /**
+     * Appends a message to the history file.
+     *
+     * @return true if the message was written, false otherwise.
+     */
+    private boolean save(Message message) {
+        byte[] text = message.getText().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (out == null) {
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(historyFile, true)));
+            }
+            out.writeBoolean(message.isUser());
+            out.writeInt(text.length);
+            out.write(text);
+        } catch (IOException e) {
+            System.out.println("Error saving transcript history.");
+            return false;
+        }
+
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count++] = length;
+        length += 1 + 4 + text.length;
+        return true;
+    }
+
+    private List<Message> read(int from, int to) throws IOException {
+        out.flush();
+
+        long start = offsets[from];
+        long end = to < count ? offsets[to] : length;
+        byte[] bytes = new byte[(int) (end - start)];
+        try (RandomAccessFile file = new RandomAccessFile(historyFile, "r")) {
+            file.seek(start);
+            file.readFully(bytes);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        List<Message> page = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            boolean isUser = in.readBoolean();
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            page.add(new Message(isUser, new String(text, StandardCharsets.UTF_8)));
+        }
+        return page;
+    }
+}
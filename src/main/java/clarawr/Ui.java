@@ -1,35 +1,72 @@
 package clarawr;
 
-import java.util.ArrayList;
-
 /**
  * Provides a method for displaying messages to the user, including
  * task list.
  */
 public class Ui {
+    static final int DEFAULT_PAGE_SIZE = 50;
+
+    // Rough length of one listed task, used to size the response up front
+    private static final int LINE_LENGTH_ESTIMATE = 64;
+    private static final LatencyHistogram RENDER_LATENCY = Metrics.histogram("render list");
 
     /**
-     * Displays the list of tasks to the user.
-     * If the task list is empty, a message indicating so is displayed.
+     * Displays one page of the tasks in the list to the user.
+     * Only the tasks on the page are formatted, so the cost does not grow with the size of the list.
+     * Each task is shown with its position and its ID, either of which can be given to mark, unmark or delete.
+     * If there are no tasks to show, a message indicating so is displayed.
+     * The time taken is recorded in {@link Metrics} as "render list".
      *
-     * @param tasks The list of tasks to display.
-     * @return A formatted string representation of the tasks in the list,
+     * @param taskList The list of tasks to display.
+     * @param filter The condition a task must meet to be shown, or null to show every task.
+     * @param page The one-based page number.
+     * @param pageSize The number of tasks on each page.
+     * @return A formatted string representation of the tasks on the page,
      * or a message indicating that no tasks are available.
      */
-    public String showListOfTasks(ArrayList<Task> tasks) {
+    public String showPageOfTasks(TaskList taskList, TaskFilter filter, int page, int pageSize) {
 
-        assert tasks != null : "Task list cannot be null";
+        assert taskList != null : "Task list cannot be null";
+        assert page > 0 && pageSize > 0 : "Page and page size must be positive";
 
-        if (tasks.isEmpty()) {
-            return "No tasks in your list.";
+        long start = System.nanoTime();
+        try {
+            return renderPageOfTasks(taskList, filter, page, pageSize);
+        } finally {
+            RENDER_LATENCY.recordSince(start, false);
         }
+    }
 
-        StringBuilder response = new StringBuilder("Here are the tasks in your list:\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            response.append(i + 1).append(". ").append(tasks.get(i)).append("\n");
+    private static String renderPageOfTasks(TaskList taskList, TaskFilter filter, int page, int pageSize) {
+        StringBuilder response = new StringBuilder(LINE_LENGTH_ESTIMATE * (Math.min(pageSize, taskList.getSize()) + 2));
+        response.append("Here are the tasks in your list");
+        if (page > 1) {
+            response.append(" (page ").append(page).append(")");
         }
+        response.append(":");
+
+        int headerLength = response.length();
+        int skip = (int) Math.min(Integer.MAX_VALUE, (long) (page - 1) * pageSize);
+        boolean hasMore = taskList.forEachTask(filter, skip, pageSize, (task, index) ->
+                response.append("\n").append(index + 1).append(". #").append(task.getId()).append(task));
 
-        return response.toString().trim();
+        if (response.length() == headerLength) {
+            if (page > 1) {
+                return "RAWR there aren't that many pages.";
+            }
+            return filter == null ? "No tasks in your list." : "No matching tasks in your list.";
+        }
+        if (hasMore) {
+            response.append("\nThere's more! Type list ").append(page + 1);
+            if (filter != null) {
+                response.append(" ").append(filter);
+            }
+            if (pageSize != DEFAULT_PAGE_SIZE) {
+                response.append(" --page-size ").append(pageSize);
+            }
+            response.append(" to see the next page.");
+        }
+        return response.toString();
     }
 }
-
@@ -0,0 +1,216 @@
+package clarawr;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Represents the folder where Clarawr keeps its task lists, and the list currently in use.
+ * Each named list, such as "work" or "home", has its own snapshot and journal files in the folder.
+ * A list is only read from disk when it is first used, and switching to another list writes out
+ * and closes the one in use, so only the tasks of the active list are ever held in memory.
+ * <p>
+ * The folder is taken from the {@code --home} command-line option, the {@code clarawr.home} system property
+ * or the {@code CLARAWR_HOME} environment variable, in that order, and is otherwise ".clarawr" in the user's home.
+ */
+class Workspace {
+    static final String HOME_PROPERTY = "clarawr.home";
+    static final String HOME_VARIABLE = "CLARAWR_HOME";
+    static final String HOME_OPTION = "--home";
+    static final String DEFAULT_LIST = "tasks";
+    private static final String FILE_EXTENSION = ".tasks";
+    private static final String JOURNAL_EXTENSION = FILE_EXTENSION + ".journal";
+    private static final int MAX_NAME_LENGTH = 32;
+
+    private final File root;
+    private String activeName = DEFAULT_LIST;
+    private Storage storage;
+    private TaskList taskList;
+
+    /**
+     * Constructs a workspace in the given folder, starting with the default list.
+     * The folder is created when the first change is saved.
+     *
+     * @param root The folder that holds the task lists.
+     */
+    Workspace(File root) {
+        assert root != null : "Root folder cannot be null";
+        this.root = root;
+    }
+
+    /**
+     * Constructs a workspace in the folder chosen by the {@code clarawr.home} system property,
+     * the {@code CLARAWR_HOME} environment variable, or the default folder.
+     *
+     * @return The workspace.
+     */
+    static Workspace fromSettings() {
+        String home = System.getProperty(HOME_PROPERTY);
+        if (home == null || home.isBlank()) {
+            home = System.getenv(HOME_VARIABLE);
+        }
+        if (home == null || home.isBlank()) {
+            return new Workspace(new File(System.getProperty("user.home"), ".clarawr"));
+        }
+        return new Workspace(new File(home));
+    }
+
+    /**
+     * Applies the {@code --home} option, if given, by setting the {@code clarawr.home} system property,
+     * which takes precedence over the environment variable.
+     *
+     * @param args Command-line arguments.
+     * @return The arguments without the option and its value.
+     */
+    static String[] applyHomeOption(String[] args) {
+        List<String> remaining = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(HOME_OPTION) && i + 1 < args.length) {
+                System.setProperty(HOME_PROPERTY, args[++i]);
+            } else {
+                remaining.add(args[i]);
+            }
+        }
+        return remaining.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the list in use, reading it from disk if this is its first use since it was switched to.
+     *
+     * @return The active task list.
+     */
+    synchronized TaskList getTaskList() {
+        if (taskList == null) {
+            storage = new Storage(new File(root, activeName + FILE_EXTENSION).getPath());
+            taskList = new TaskList(storage);
+            taskList.loadFromStorage();
+        }
+        return taskList;
+    }
+
+    /**
+     * Returns the list in use if it has already been read from disk, without reading it otherwise.
+     * Background work such as reminders uses this, so that only a command ever causes a list to be read.
+     *
+     * @return The active task list, or null if it has not been read yet.
+     */
+    synchronized TaskList getLoadedTaskList() {
+        return taskList;
+    }
+
+    /**
+     * Returns the name of the list in use.
+     *
+     * @return The active list name.
+     */
+    synchronized String getActiveName() {
+        return activeName;
+    }
+
+    /**
+     * Returns whether the tasks of the active list are currently held in memory.
+     *
+     * @return true once the active list has been read from disk, false before.
+     */
+    synchronized boolean isLoaded() {
+        return taskList != null;
+    }
+
+    /**
+     * Makes another list the one in use. The list in use is written out and dropped from memory,
+     * while the new one is only read once a command needs its tasks. A list that does not exist yet
+     * starts out empty and is created when its first change is saved.
+     *
+     * @param name The name of the list, made of letters, digits, dashes and underscores. Case is ignored.
+     * @throws ClarawrException If the name is empty, too long or holds other characters,
+     *         or if the list in use could not be written out, in which case the switch still happens.
+     */
+    synchronized void switchTo(String name) throws ClarawrException {
+        String normalised = normalise(name);
+        if (normalised.equals(activeName)) {
+            return;
+        }
+        try {
+            close();
+        } finally {
+            activeName = normalised;
+        }
+    }
+
+    private static String normalise(String name) throws ClarawrException {
+        String trimmed = name.trim().toLowerCase();
+        if (trimmed.isEmpty() || trimmed.length() > MAX_NAME_LENGTH) {
+            throw new ClarawrException("Give your list a name of 1 to " + MAX_NAME_LENGTH + " characters, "
+                    + "e.g. switch work");
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9') && c != '-' && c != '_') {
+                throw new ClarawrException("RAWR list names can only have letters, digits, - and _");
+            }
+        }
+        return trimmed;
+    }
+
+    /**
+     * Returns the names of the lists saved in the folder, along with the active list even if it is not saved yet.
+     *
+     * @return The list names, in alphabetical order.
+     */
+    synchronized List<String> getListNames() {
+        TreeSet<String> names = new TreeSet<>();
+        names.add(activeName);
+        String[] files = root.list();
+        if (files != null) {
+            for (String file : files) {
+                // A list that was never compacted only has a journal
+                if (file.endsWith(FILE_EXTENSION)) {
+                    names.add(file.substring(0, file.length() - FILE_EXTENSION.length()));
+                } else if (file.endsWith(JOURNAL_EXTENSION)) {
+                    names.add(file.substring(0, file.length() - JOURNAL_EXTENSION.length()));
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Waits until every change made to the active list has been written to disk.
+     *
+     * @throws ClarawrException If a change could not be written.
+     */
+    synchronized void flush() throws ClarawrException {
+        if (storage != null) {
+            storage.flush();
+        }
+    }
+
+    /**
+     * Reports a change to the active list that could not be written, without waiting for pending writes.
+     *
+     * @throws ClarawrException If a change could not be written.
+     */
+    synchronized void checkSaved() throws ClarawrException {
+        if (storage != null) {
+            storage.checkSaved();
+        }
+    }
+
+    /**
+     * Writes out the active list and drops it from memory. It is read again on its next use.
+     * The list is dropped even if it could not be written out.
+     *
+     * @throws ClarawrException If a change could not be written.
+     */
+    synchronized void close() throws ClarawrException {
+        try {
+            if (storage != null) {
+                storage.close();
+            }
+        } finally {
+            storage = null;
+            taskList = null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClarawrTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void rejectsEventsThatDoNotEndAfterTheyStart() throws ClarawrException {
+        Clarawr clarawr = new Clarawr(new Workspace(tempDir.toFile()));
+
+        assertEquals("Error: Time travel? The event has to end after it starts.",
+                clarawr.getResponse("event x /from 2025-01-01 1000 /to 2025-01-01 1000"));
+        assertEquals("Error: Time travel? The event has to end after it starts.",
+                clarawr.getResponse("event x /from 2025-01-01 1000 /to 2025-01-01 0900"));
+        assertTrue(clarawr.getResponse("event x /from 2025-01-01 1000 /to 2025-01-01 1001").startsWith("RAWR!"));
+        clarawr.flush();
+    }
+}
@@ -0,0 +1,55 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CommandRegistryTest {
+    private static CommandRegistry createRegistry() {
+        CommandRegistry commands = new CommandRegistry();
+        commands.register(arguments -> "list " + arguments, "list");
+        commands.register(arguments -> "listbydate " + arguments, "listbydate");
+        commands.register(arguments -> "listbetween " + arguments, "listbetween");
+        commands.register(arguments -> "deadline " + arguments, "deadline");
+        commands.register(arguments -> "delete " + arguments, "delete", "remove");
+        return commands;
+    }
+
+    @Test
+    public void dispatchesFullNamesAndUnambiguousPrefixes() throws ClarawrException {
+        CommandRegistry commands = createRegistry();
+
+        assertEquals("list ", commands.dispatch("list"));
+        assertEquals("list 2 undone", commands.dispatch("  LIST   2 undone"));
+        assertEquals("listbydate 2025-02-02", commands.dispatch("listby 2025-02-02"));
+        assertEquals("deadline x /by 2025-01-01 2359", commands.dispatch("dea x /by 2025-01-01 2359"));
+        assertEquals("delete 3", commands.dispatch("rem 3"));
+        assertNull(commands.dispatch("dance"));
+        assertNull(commands.dispatch("   "));
+    }
+
+    @Test
+    public void rejectsAmbiguousPrefixes() {
+        CommandRegistry commands = createRegistry();
+
+        ClarawrException e = assertThrows(ClarawrException.class, () -> commands.dispatch("de 3"));
+        assertEquals("RAWR did you mean deadline or delete?", e.getMessage());
+        e = assertThrows(ClarawrException.class, () -> commands.dispatch("listb"));
+        assertEquals("RAWR did you mean listbetween or listbydate?", e.getMessage());
+    }
+
+    @Test
+    public void completesAsFarAsTheNamesAgree() {
+        CommandRegistry commands = createRegistry();
+
+        assertEquals("list", commands.complete("l"));
+        assertEquals("listb", commands.complete("listb"));
+        assertEquals("listbydate ", commands.complete("listby"));
+        assertEquals("de", commands.complete("de"));
+        assertEquals("remove ", commands.complete("r"));
+        assertEquals("dance", commands.complete("dance"));
+        assertEquals("list 2", commands.complete("list 2"));
+    }
+}
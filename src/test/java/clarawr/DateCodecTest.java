@@ -0,0 +1,39 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DateCodecTest {
+    @Test
+    public void fastPathAgreesWithFormatter() {
+        String[] inputs = { "2025-12-12 1200", "2024-02-29 0000", "1999-01-31 2359" };
+        for (String input : inputs) {
+            assertEquals(LocalDateTime.parse(input, DateCodec.INPUT_FORMATTER), DateCodec.parseInput(input));
+        }
+
+        String[] displays = { "Dec-12-2025 12:00", "Feb-29-2024 00:00", "Jan-31-1999 23:59" };
+        for (String display : displays) {
+            assertEquals(LocalDateTime.parse(display, DateCodec.DISPLAY_FORMATTER), DateCodec.parseDisplay(display));
+        }
+    }
+
+    @Test
+    public void borderlineDatesBehaveLikeFormatter() {
+        assertEquals(LocalDateTime.parse("2025-02-30 1200", DateCodec.INPUT_FORMATTER),
+                DateCodec.parseInput("2025-02-30 1200"));
+        assertThrows(DateTimeParseException.class, () -> DateCodec.parseInput("2025-13-01 1200"));
+        assertThrows(DateTimeParseException.class, () -> DateCodec.parseInput("2025-12-12 2460"));
+        assertThrows(DateTimeParseException.class, () -> DateCodec.parseDisplay("Foo-12-2025 12:00"));
+    }
+
+    @Test
+    public void formatRoundTripsThroughDisplayParser() {
+        LocalDateTime dateTime = LocalDateTime.of(2025, 3, 7, 9, 5);
+        assertEquals(dateTime, DateCodec.parseDisplay(DateCodec.format(dateTime)));
+    }
+}
@@ -0,0 +1,50 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlightEventsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void recordsCommandsAndSaves() throws Exception {
+        Path recordingFile = tempDir.resolve("session.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("clarawr.CommandExecuted").withoutThreshold();
+            recording.enable("clarawr.TasksSaved").withoutThreshold();
+            recording.enable("clarawr.TasksLoaded").withoutThreshold();
+            recording.start();
+
+            Clarawr clarawr = new Clarawr(new Workspace(tempDir.toFile()));
+            clarawr.getResponse("todo feed the lion");
+            clarawr.getResponse("mark 7");
+            clarawr.flush();
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        List<RecordedEvent> commands = events.stream()
+                .filter(event -> event.getEventType().getName().equals("clarawr.CommandExecuted")).toList();
+        assertEquals(2, commands.size());
+        assertEquals("todo", commands.get(0).getString("command"));
+        assertEquals("feed the lion".length(), commands.get(0).getInt("argumentLength"));
+        assertEquals("ok", commands.get(0).getString("outcome"));
+        assertEquals("error", commands.get(1).getString("outcome"));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("clarawr.TasksLoaded")));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("clarawr.TasksSaved")
+                && event.getString("target").equals("journal") && event.getInt("taskCount") == 1));
+    }
+}
@@ -0,0 +1,81 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IntervalTreeTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @Test
+    public void matchesBruteForceUnderRandomChanges() {
+        Random random = new Random(3);
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime from = START.plusMinutes(random.nextInt(10_000));
+            taskList.addTask(new Event("event " + i, from, from.plusMinutes(random.nextInt(300)), false));
+            if (i % 3 == 0) {
+                taskList.addTask(new Todo("todo " + i, false));
+            }
+        }
+        IntervalTree tree = new IntervalTree(taskList.getAllTasks());
+        List<Event> events = new ArrayList<>();
+        for (Task task : taskList.getAllTasks()) {
+            if (task instanceof Event) {
+                events.add((Event) task);
+            }
+        }
+        for (int i = 0; i < 150; i++) {
+            tree.remove(events.remove(random.nextInt(events.size())));
+        }
+        events.sort((a, b) -> a.getFrom().equals(b.getFrom())
+                ? Long.compare(a.getId(), b.getId()) : a.getFrom().compareTo(b.getFrom()));
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = START.plusMinutes(random.nextInt(10_000));
+            LocalDateTime to = from.plusMinutes(random.nextInt(600));
+            List<Event> expected = new ArrayList<>();
+            for (Event event : events) {
+                if (event.getFrom().isBefore(to) && event.getTo().isAfter(from)) {
+                    expected.add(event);
+                }
+            }
+            assertEquals(expected, tree.getOverlapping(from, to));
+        }
+
+        int expectedConflicts = 0;
+        for (int i = 0; i < events.size(); i++) {
+            for (int j = i + 1; j < events.size(); j++) {
+                Event a = events.get(i);
+                Event b = events.get(j);
+                if (a.getFrom().isBefore(b.getTo()) && b.getFrom().isBefore(a.getTo())) {
+                    expectedConflicts++;
+                }
+            }
+        }
+        assertEquals(expectedConflicts, tree.findConflicts().size());
+    }
+
+    @Test
+    public void treatsBackToBackEventsAsNoClash() {
+        Event morning = new Event("morning", START.plusHours(9), START.plusHours(12), false);
+        Event lunch = new Event("lunch", START.plusHours(12), START.plusHours(13), false);
+        Event call = new Event("call", START.plusHours(11), START.plusHours(12).plusMinutes(30), false);
+        TaskList taskList = new TaskList();
+        taskList.addTask(morning);
+        taskList.addTask(lunch);
+        taskList.addTask(call);
+
+        List<Event[]> conflicts = taskList.getConflicts();
+
+        assertEquals(2, conflicts.size());
+        assertEquals(List.of(morning, call), List.of(conflicts.get(0)));
+        assertEquals(List.of(call, lunch), List.of(conflicts.get(1)));
+        assertEquals(List.of(morning, call), taskList.getOverlappingEvents(START.plusHours(10), START.plusHours(12)));
+    }
+}
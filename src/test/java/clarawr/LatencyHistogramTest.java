@@ -0,0 +1,40 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void readsPercentilesWithinAnEighth() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L, i % 100 == 0);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(10, histogram.getErrorCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertWithinAnEighth(500_000, histogram.getPercentileNanos(50));
+        assertWithinAnEighth(990_000, histogram.getPercentileNanos(99));
+        assertEquals(1_000_000, histogram.getPercentileNanos(100));
+        assertEquals(0, new LatencyHistogram("empty").getPercentileNanos(50));
+    }
+
+    @Test
+    public void countsEveryRecordFromManyThreads() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+
+        IntStream.range(0, 40_000).parallel().forEach(i -> histogram.record(i, false));
+
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(39_999, histogram.getMaxNanos());
+    }
+
+    private static void assertWithinAnEighth(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 8, "expected about " + expected + " got " + actual);
+    }
+}
@@ -0,0 +1,60 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RemindersTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Test
+    public void remindsOncePerLeadTimeAsTasksComeCloser() {
+        TaskList taskList = new TaskList();
+        taskList.addTask(new Deadline("report", NOW.plusMinutes(30), false));
+        taskList.addTask(new Event("camp", NOW.plusDays(1).plusMinutes(10), NOW.plusDays(2), false));
+        taskList.addTask(new Deadline("already late", NOW.minusMinutes(5), false));
+        Reminders reminders = new Reminders(() -> taskList, () -> "tasks", Duration.ofMinutes(15), Duration.ofDays(1));
+
+        assertEquals(List.of("RAWR reminder! Due in 30 minutes: #1" + taskList.getTask(0)),
+                reminders.check(NOW));
+        assertEquals(List.of(), reminders.check(NOW.plusMinutes(5)));
+        assertEquals(List.of(), reminders.check(NOW.plusMinutes(10)));
+        assertEquals(List.of("RAWR reminder! Starting in 23 hours: #2" + taskList.getTask(1)),
+                reminders.check(NOW.plusMinutes(11)));
+        assertEquals(List.of("RAWR reminder! Due in 14 minutes: #1" + taskList.getTask(0)),
+                reminders.check(NOW.plusMinutes(16)));
+
+        taskList.markTaskAsDone(1);
+        assertEquals(List.of(), reminders.check(NOW.plusDays(1)));
+    }
+
+    @Test
+    public void remindsOfNewTasksThatAreAlreadyClose() {
+        TaskList taskList = new TaskList();
+        Reminders reminders = new Reminders(() -> taskList, () -> "tasks", Duration.ofMinutes(15), Duration.ofDays(1));
+        assertEquals(List.of(), reminders.check(NOW));
+
+        taskList.addTask(new Deadline("soon", NOW.plusMinutes(5), false));
+        taskList.addTask(new Deadline("tomorrow", NOW.plusHours(3), false));
+        assertEquals(List.of("RAWR reminder! Due in 2 hours: #2" + taskList.getTask(1),
+                "RAWR reminder! Due in 4 minutes: #1" + taskList.getTask(0)),
+                reminders.check(NOW.plusMinutes(1)));
+        assertEquals(List.of(), reminders.check(NOW.plusMinutes(2)));
+    }
+
+    @Test
+    public void parsesLeadTimes() throws ClarawrException {
+        assertArrayEquals(new Duration[] { Duration.ofDays(1), Duration.ofHours(2), Duration.ofMinutes(15) },
+                Reminders.parseLeadTimes("1d, 2H,15m"));
+        assertArrayEquals(new Duration[0], Reminders.parseLeadTimes("none"));
+        assertThrows(ClarawrException.class, () -> Reminders.parseLeadTimes("15"));
+        assertThrows(ClarawrException.class, () -> Reminders.parseLeadTimes("0m"));
+        assertThrows(ClarawrException.class, () -> Reminders.parseLeadTimes("1d,,2h"));
+    }
+}
@@ -0,0 +1,255 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void replaysJournalOnLoad() throws ClarawrException {
+        String filePath = tempDir.resolve("clarawr.txt").toString();
+        Storage storage = new Storage(filePath);
+        TaskList taskList = new TaskList(storage);
+        taskList.addTask(new Todo("eat", false));
+        taskList.addTask(new Deadline("submit", LocalDateTime.of(2025, 12, 12, 12, 0), false));
+        taskList.addTask(new Todo("sleep", false));
+        taskList.markTaskAsDone(1);
+        taskList.deleteTask(0);
+        storage.flush();
+
+        List<Task> loaded = new Storage(filePath).loadTasksFromFile();
+
+        assertEquals(2, loaded.size());
+        assertEquals("submit", loaded.get(0).getDescription());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("sleep", loaded.get(1).getDescription());
+        assertFalse(loaded.get(1).isDone());
+    }
+
+    @Test
+    public void replaysBatchChangesOnTopOfMappedSnapshot() throws ClarawrException {
+        String filePath = tempDir.resolve("clarawr.txt").toString();
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(new Todo("task " + i, false));
+        }
+        new Storage(filePath).saveTasksToFile(tasks);
+
+        Storage storage = new Storage(filePath);
+        TaskList taskList = new TaskList(storage);
+        taskList.loadFromStorage();
+        taskList.markTasksAsDone(new int[] { 1, 2, 8 });
+        taskList.markTasksAsUndone(new int[] { 2 });
+        taskList.deleteTasks(new int[] { 0, 4, 5, 9 });
+        storage.flush();
+
+        List<Task> loaded = new Storage(filePath).loadTasksFromFile();
+
+        assertEquals(taskList.getAllTasks(), loaded);
+        assertTrue(loaded.get(0).isDone());
+        assertFalse(loaded.get(1).isDone());
+        assertTrue(loaded.get(5).isDone());
+    }
+
+    @Test
+    public void keepsJournalAfterSnapshot() throws ClarawrException {
+        String filePath = tempDir.resolve("clarawr.txt").toString();
+        Storage storage = new Storage(filePath);
+        TaskList taskList = new TaskList(storage);
+        taskList.addTask(new Todo("eat", false));
+        storage.saveTasksToFile(taskList.getAllTasks());
+        taskList.addTask(new Todo("sleep", false));
+        taskList.markTaskAsDone(0);
+        storage.flush();
+
+        List<Task> loaded = new Storage(filePath).loadTasksFromFile();
+
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("sleep", loaded.get(1).getDescription());
+    }
+
+    @Test
+    public void migratesTextFileToBinary() throws Exception {
+        Path file = tempDir.resolve("clarawr.txt");
+        Files.writeString(file, "[T][ ]eat\n[D][X]Submit CS2103 Assignment /by Dec-12-2025 12:00\n");
+
+        List<Task> loaded = new Storage(file.toString()).loadTasksFromFile();
+
+        assertEquals(2, loaded.size());
+        assertEquals("eat", loaded.get(0).getDescription());
+        assertEquals(LocalDateTime.of(2025, 12, 12, 12, 0), ((Deadline) loaded.get(1)).getDeadline());
+        assertTrue(loaded.get(1).isDone());
+        assertTrue(TaskCodec.isCurrentVersion(file.toFile()));
+        assertEquals(1, loaded.get(0).getId());
+        assertEquals(2, loaded.get(1).getId());
+
+        List<Task> reloaded = new Storage(file.toString()).loadTasksFromFile();
+        assertEquals(loaded.get(1).toFileString(), reloaded.get(1).toFileString());
+    }
+
+    @Test
+    public void givesIdsToTasksSavedWithoutThem() throws Exception {
+        Path file = tempDir.resolve("clarawr.txt");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(TaskCodec.MAGIC);
+        out.writeByte(TaskCodec.VERSION_WITHOUT_IDS);
+        out.writeLong(0);
+        out.writeInt(2);
+        for (String description : List.of("eat", "sleep")) {
+            out.writeByte(0);
+            out.writeBoolean(false);
+            out.writeInt(description.length());
+            out.writeBytes(description);
+        }
+        Files.write(file, bytes.toByteArray());
+
+        TaskList taskList = new TaskList(new Storage(file.toString()));
+        taskList.loadFromStorage();
+
+        assertEquals(1, taskList.indexOf(2));
+        assertEquals("sleep", taskList.getTask(1).getDescription());
+        assertTrue(TaskCodec.isCurrentVersion(file.toFile()));
+    }
+
+    @Test
+    public void roundTripsEveryTaskType() throws Exception {
+        String filePath = tempDir.resolve("clarawr.txt").toString();
+        Storage storage = new Storage(filePath);
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("buy groceries", true));
+        tasks.add(new Deadline("cs2103 assignment", LocalDateTime.of(2025, 1, 1, 23, 59), false));
+        tasks.add(new Event("team meeting", LocalDateTime.of(2025, 2, 2, 12, 0),
+                LocalDateTime.of(2025, 2, 2, 14, 0), false));
+        storage.saveTasksToFile(tasks);
+
+        List<Task> loaded = new Storage(filePath).loadTasksFromFile();
+
+        assertEquals(3, loaded.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toFileString(), loaded.get(i).toFileString());
+        }
+    }
+
+    @Test
+    public void keepsUntouchedTasksUndecodedAcrossSaves() throws ClarawrException {
+        String filePath = tempDir.resolve("clarawr.txt").toString();
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Todo("task " + i, false));
+        }
+        new Storage(filePath).saveTasksToFile(tasks);
+
+        Storage storage = new Storage(filePath);
+        TaskList taskList = new TaskList(storage);
+        taskList.loadFromStorage();
+        // The whole snapshot is one undecoded run of the mapping until it is changed
+        assertEquals(1, ((TaskTree) taskList.getAllTasks()).getPieceCount());
+        taskList.markTaskAsDone(42);
+        taskList.deleteTask(0);
+        storage.saveTasksToFile(taskList.getAllTasks());
+
+        List<Task> loaded = new Storage(filePath).loadTasksFromFile();
+
+        assertEquals(99, loaded.size());
+        assertEquals("task 1", loaded.get(0).getDescription());
+        assertTrue(loaded.get(41).isDone());
+        assertFalse(loaded.get(42).isDone());
+    }
+
+    @Test
+    public void keepsTaskIdsAcrossDeletesAndReloads() throws ClarawrException {
+        String filePath = tempDir.resolve("clarawr.txt").toString();
+        Storage storage = new Storage(filePath);
+        TaskList taskList = new TaskList(storage);
+        taskList.addTask(new Todo("eat", false));
+        taskList.addTask(new Todo("sleep", false));
+        taskList.addTask(new Todo("rawr", false));
+        taskList.deleteTask(2);
+        storage.flush();
+
+        // Only the journal holds the deleted task's ID, which must still not be given out again
+        Storage journalOnly = new Storage(filePath);
+        TaskList reloaded = new TaskList(journalOnly);
+        reloaded.loadFromStorage();
+        reloaded.deleteTask(0);
+        reloaded.addTask(new Todo("nap", false));
+        journalOnly.saveTasksToFile(reloaded.getAllTasks());
+
+        TaskList fromSnapshot = new TaskList(new Storage(filePath));
+        fromSnapshot.loadFromStorage();
+
+        assertEquals(-1, fromSnapshot.indexOf(1));
+        assertEquals(0, fromSnapshot.indexOf(2));
+        assertEquals(1, fromSnapshot.indexOf(4));
+        Task added = new Todo("snack", false);
+        fromSnapshot.addTask(added);
+        assertEquals(5, added.getId());
+    }
+
+    @Test
+    public void fallsBackToNewestIntactGeneration() throws Exception {
+        Path file = tempDir.resolve("clarawr.txt");
+        Storage storage = new Storage(file.toString(), 50, 2);
+        storage.saveTasksToFile(List.of(new Todo("first", false)));
+        storage.saveTasksToFile(List.of(new Todo("first", false), new Todo("second", false)));
+        storage.saveTasksToFile(List.of(new Todo("third", false)));
+        assertFalse(Files.exists(tempDir.resolve("clarawr.txt.2")));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 6] ^= 1;
+        Files.write(file, bytes);
+
+        List<Task> loaded = new Storage(file.toString(), 50, 2).loadTasksFromFile();
+
+        assertEquals(List.of(new Todo("first", false), new Todo("second", false)), loaded);
+        // The intact copy is saved again as the current snapshot
+        assertEquals(loaded, new Storage(file.toString(), 50, 2).loadTasksFromFile());
+    }
+
+    @Test
+    public void ignoresTheNextIdOfADamagedSnapshot() throws Exception {
+        Path file = tempDir.resolve("clarawr.txt");
+        new Storage(file.toString(), 50, 1).saveTasksToFile(List.of(new Todo("first", false)));
+
+        byte[] bytes = Files.readAllBytes(file);
+        // The first byte of the next ID, which comes after the header and the journal sequence
+        bytes[TaskCodec.HEADER_LENGTH + Long.BYTES] = (byte) 0x7F;
+        Files.write(file, bytes);
+
+        Storage storage = new Storage(file.toString(), 50, 1);
+        assertTrue(storage.loadTasksFromFile().isEmpty());
+        assertEquals(1, storage.getNextId());
+    }
+
+    @Test
+    public void reportsFailedSavesOnceOnFlush() throws ClarawrException {
+        Path file = tempDir.resolve("clarawr.txt");
+        Storage storage = new Storage(file.toString());
+        // A folder in place of the journal makes every journal write fail
+        assertTrue(tempDir.resolve("clarawr.txt.journal").toFile().mkdir());
+        TaskList taskList = new TaskList(storage);
+        taskList.addTask(new Todo("eat", false));
+
+        ClarawrException e = assertThrows(ClarawrException.class, storage::flush);
+
+        assertTrue(e.getMessage().startsWith("RAWR I couldn't save your tasks to disk"));
+        storage.flush();
+    }
+}
@@ -0,0 +1,36 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaskArgumentsTest {
+    @Test
+    public void pullsDescriptionAndFlagsApart() throws ClarawrException {
+        TaskArguments arguments = TaskArguments.parse("read 1/2 of book /from 2025-02-02 1200  /to 2025-02-02 1400",
+                "/from", "/to");
+
+        assertEquals("read 1/2 of book", arguments.getDescription());
+        assertEquals("2025-02-02 1200", arguments.get("/from"));
+        assertEquals("2025-02-02 1400", arguments.get("/to"));
+        assertEquals("a /to b", TaskArguments.parse("a /to b /by c", "/by").getDescription());
+    }
+
+    @Test
+    public void reportsWhatIsWrong() {
+        assertEquals("I can't find /by in there. Did you forget it?", messageOf("submit report", "/by"));
+        assertEquals("I can't find /by in there. Did you forget it?", messageOf("submit /bypass", "/by"));
+        assertEquals("There's nothing after /by. What goes there?", messageOf("submit /by  ", "/by"));
+        assertEquals("The description cannot be empty *sniffs* what is the task about?",
+                messageOf("/by 2025-01-01 2359", "/by"));
+        assertEquals("Put /from before /to please.", messageOf("camp /to 2025-01-02 1200 /from 2025-01-01 1200",
+                "/from", "/to"));
+        assertEquals("There's nothing after /from. What goes there?", messageOf("camp /from /to 2025-01-01 1200",
+                "/from", "/to"));
+    }
+
+    private static String messageOf(String text, String... flags) {
+        return assertThrows(ClarawrException.class, () -> TaskArguments.parse(text, flags)).getMessage();
+    }
+}
@@ -2,11 +2,19 @@ package clarawr;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TaskListTest {
@@ -24,7 +32,7 @@ public class TaskListTest {
         TaskList taskList = new TaskList();
         taskList.addTask(toDoTask);
         taskList.addTask(deadlineTask);
-        ArrayList<Task> allTasks = taskList.getAllTasks();
+        List<Task> allTasks = taskList.getAllTasks();
 
         // Verify that the task list contains the correct tasks
         assertEquals(2, allTasks.size()); // There should be 2 tasks
@@ -39,4 +47,317 @@ public class TaskListTest {
 
     }
 
+    @Test
+    public void findTasksMatchesWordPrefixesInListOrder() {
+        TaskList taskList = new TaskList();
+        taskList.addTask(new Todo("buy groceries", false));
+        taskList.addTask(new Todo("team meeting", false));
+        taskList.addTask(new Todo("Meet the team for lunch", false));
+        taskList.addTask(new Todo("read book", false));
+
+        assertArrayEquals(new int[] { 1, 2 }, taskList.findTasks("meet"));
+        assertArrayEquals(new int[] { 1, 2 }, taskList.findTasks("TEAM"));
+        assertArrayEquals(new int[] { 2 }, taskList.findTasks("team lun"));
+        assertArrayEquals(new int[0], taskList.findTasks("eting"));
+
+        taskList.deleteTask(0);
+        taskList.addTask(new Todo("meet mom", false));
+
+        assertArrayEquals(new int[] { 0, 1, 3 }, taskList.findTasks("meet"));
+        assertEquals("meet mom", taskList.getTask(3).getDescription());
+    }
+
+    @Test
+    public void findTasksSkipsDeletedTasksBeforeAndAfterSweeping() {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 10; i++) {
+            taskList.addTask(new Todo("chore " + i, false));
+        }
+        assertEquals(10, taskList.findTasks("chore").length);
+
+        taskList.deleteTask(2);
+        taskList.markTaskAsDone(2);
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 }, taskList.findTasks("chore"));
+        assertArrayEquals(new int[] { 2 }, taskList.findTasks("chore 3"));
+
+        while (taskList.getSize() > 1) {
+            taskList.deleteTask(0);
+            assertEquals(taskList.getSize(), taskList.findTasks("chore").length);
+        }
+        assertArrayEquals(new int[] { 0 }, taskList.findTasks("chore 9"));
+        assertArrayEquals(new int[0], taskList.findTasks("chore 8"));
+    }
+
+    @Test
+    public void datesIncludeEveryDayOfMultiDayEvents() {
+        TaskList taskList = new TaskList();
+        Task camp = new Event("camp", LocalDateTime.of(2025, 3, 1, 9, 0), LocalDateTime.of(2025, 3, 3, 17, 0), false);
+        Task essay = new Deadline("essay", LocalDateTime.of(2025, 3, 2, 23, 59), false);
+        Task report = new Deadline("report", LocalDateTime.of(2025, 3, 5, 12, 0), false);
+        taskList.addTask(camp);
+        taskList.addTask(new Todo("eat", false));
+        taskList.addTask(essay);
+        taskList.addTask(report);
+
+        assertEquals(List.of(camp, essay), taskList.getTasksOn(LocalDate.of(2025, 3, 2)));
+        assertEquals(List.of(camp), taskList.getTasksOn(LocalDate.of(2025, 3, 3)));
+        assertEquals(List.of(camp, essay, report),
+                taskList.getTasksBetween(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31)));
+
+        taskList.deleteTask(0);
+
+        assertEquals(List.of(essay), taskList.getTasksOn(LocalDate.of(2025, 3, 2)));
+        assertTrue(taskList.getTasksOn(LocalDate.of(2025, 3, 3)).isEmpty());
+    }
+
+    @Test
+    public void marksWithoutChangingEarlierSnapshots() {
+        TaskList taskList = new TaskList();
+        taskList.addTask(new Todo("eat", false));
+        taskList.addTask(new Deadline("essay", LocalDateTime.of(2025, 3, 2, 23, 59), false));
+        List<Task> before = taskList.getAllTasks();
+
+        taskList.markTasksAsDone(new int[] { 0, 1 });
+
+        assertFalse(before.get(0).isDone());
+        assertFalse(before.get(1).isDone());
+        assertTrue(taskList.getTask(0).isDone());
+        assertTrue(taskList.getTask(1).isDone());
+        assertEquals(before.get(1).getId(), taskList.getTask(1).getId());
+        assertEquals(List.of(taskList.getTask(1)), taskList.getTasksOn(LocalDate.of(2025, 3, 2)));
+        assertTrue(taskList.getOverdueTasks(LocalDateTime.of(2025, 4, 1, 0, 0)).isEmpty());
+
+        taskList.markTaskAsUndone(1);
+
+        assertTrue(taskList.getAllTasks().get(0).isDone());
+        assertEquals(List.of(taskList.getTask(1)), taskList.getOverdueTasks(LocalDateTime.of(2025, 4, 1, 0, 0)));
+    }
+
+    @Test
+    public void findsEventsSpanningThousandsOfYears() {
+        TaskList taskList = new TaskList();
+        Task forever = new Event("forever", LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59), false);
+        Task essay = new Deadline("essay", LocalDateTime.of(2025, 3, 2, 23, 59), false);
+        Task camp = new Event("camp", LocalDateTime.of(2025, 2, 27, 9, 0), LocalDateTime.of(2025, 3, 2, 0, 0), false);
+        taskList.addTask(essay);
+        taskList.addTask(forever);
+        taskList.addTask(camp);
+
+        assertEquals(List.of(essay, forever), taskList.getTasksOn(LocalDate.of(2025, 3, 2)));
+        assertEquals(List.of(forever), taskList.getTasksOn(LocalDate.of(9999, 12, 31)));
+        assertEquals(List.of(forever, camp, essay),
+                taskList.getTasksBetween(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31)));
+        assertEquals(List.of(forever), taskList.getTasksBetween(LocalDate.of(3000, 1, 1), LocalDate.of(5000, 1, 1)));
+
+        taskList.deleteTask(1);
+
+        assertEquals(List.of(essay), taskList.getTasksOn(LocalDate.of(2025, 3, 2)));
+        assertTrue(taskList.getTasksOn(LocalDate.of(9999, 12, 31)).isEmpty());
+    }
+
+    @Test
+    public void agendaFollowsMarksAndDeletes() {
+        LocalDateTime now = LocalDateTime.of(2025, 3, 1, 12, 0);
+        TaskList taskList = new TaskList();
+        taskList.addTask(new Deadline("late report", now.minusDays(1), false));
+        taskList.addTask(new Todo("someday", false));
+        taskList.addTask(new Event("camp", now.plusDays(2), now.plusDays(3), false));
+        taskList.addTask(new Deadline("soon", now.plusHours(1), false));
+        taskList.addTask(new Deadline("also soon", now.plusHours(1), false));
+
+        assertEquals(List.of(taskList.getTask(3), taskList.getTask(4)), taskList.getUpcomingTasks(now, 2));
+        assertEquals(List.of(taskList.getTask(0)), taskList.getOverdueTasks(now));
+
+        taskList.markTaskAsDone(3);
+        taskList.deleteTask(0);
+        assertEquals(List.of(), taskList.getOverdueTasks(now));
+        assertEquals(List.of("also soon", "camp"), descriptionsOf(taskList.getUpcomingTasks(now, 10)));
+
+        taskList.markTasksAsUndone(new int[] { 2 });
+        taskList.deleteTasks(new int[] { 1 });
+        taskList.addTask(new Deadline("later", now.plusDays(9), false));
+        assertEquals(List.of("soon", "also soon", "later"), descriptionsOf(taskList.getUpcomingTasks(now, 10)));
+    }
+
+    @Test
+    public void freeTimesSkipOverlappingEvents() {
+        LocalDateTime day = LocalDateTime.of(2025, 3, 1, 0, 0);
+        TaskList taskList = new TaskList();
+        taskList.addTask(new Event("overnight", day.minusHours(2), day.plusHours(8), false));
+        taskList.addTask(new Event("meeting", day.plusHours(10), day.plusHours(12), false));
+        taskList.addTask(new Event("lunch", day.plusHours(11), day.plusHours(13), false));
+        taskList.addTask(new Deadline("report", day.plusHours(15), false));
+
+        List<LocalDateTime[]> free = taskList.getFreeTimes(day, day.plusDays(1));
+
+        assertEquals(2, free.size());
+        assertArrayEquals(new LocalDateTime[] { day.plusHours(8), day.plusHours(10) }, free.get(0));
+        assertArrayEquals(new LocalDateTime[] { day.plusHours(13), day.plusDays(1) }, free.get(1));
+    }
+
+    private static List<String> descriptionsOf(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.getDescription());
+        }
+        return descriptions;
+    }
+
+    @Test
+    public void containsTracksDuplicatesAcrossAddAndDelete() {
+        TaskList taskList = new TaskList();
+        taskList.addAll(List.of(new Todo("eat", false), new Todo("eat", true)));
+
+        assertTrue(taskList.contains(new Todo("eat", false)));
+        assertFalse(taskList.contains(new Deadline("eat", LocalDateTime.of(2025, 1, 1, 0, 0), false)));
+
+        taskList.deleteTask(0);
+        assertTrue(taskList.contains(new Todo("eat", false)));
+        taskList.deleteTask(0);
+        assertFalse(taskList.contains(new Todo("eat", false)));
+
+        taskList.addTask(new Todo("sleep", false));
+        assertTrue(taskList.contains(new Todo("sleep", true)));
+    }
+
+    @Test
+    public void findsTasksByIdAfterEarlierTasksAreDeleted() {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 10; i++) {
+            taskList.addTask(new Todo("task " + i, false));
+        }
+
+        taskList.deleteTask(0);
+        taskList.deleteTask(3);
+
+        assertEquals(-1, taskList.indexOf(1));
+        assertEquals(0, taskList.indexOf(2));
+        assertEquals(-1, taskList.indexOf(5));
+        assertEquals(3, taskList.indexOf(6));
+        assertEquals("task 9", taskList.getTask(taskList.indexOf(10)).getDescription());
+        assertEquals(-1, taskList.indexOf(11));
+    }
+
+    @Test
+    public void deletesManyTasksAndKeepsSearchesUpToDate() {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 20; i++) {
+            taskList.addTask(new Deadline("report " + i, LocalDateTime.of(2025, 3, 1 + i, 12, 0), false));
+        }
+        assertEquals(20, taskList.findTasks("report").length);
+        assertTrue(taskList.contains(new Deadline("report 3", LocalDateTime.of(2025, 3, 4, 12, 0), false)));
+        assertEquals(1, taskList.getTasksOn(LocalDate.of(2025, 3, 4)).size());
+
+        List<Task> deleted = taskList.deleteTasks(new int[] { 0, 3, 4, 5, 19 });
+
+        assertEquals(5, deleted.size());
+        assertEquals("report 3", deleted.get(1).getDescription());
+        assertEquals(15, taskList.getSize());
+        assertArrayEquals(new int[] { 0, 6, 7, 8, 9, 10, 11, 12, 13, 14 }, taskList.findTasks("report 1"));
+        assertFalse(taskList.contains(new Deadline("report 3", LocalDateTime.of(2025, 3, 4, 12, 0), false)));
+        assertTrue(taskList.getTasksOn(LocalDate.of(2025, 3, 4)).isEmpty());
+        assertEquals(2, taskList.indexOf(7));
+    }
+
+    @Test
+    public void forEachTaskVisitsOnePageOfMatches() {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 10; i++) {
+            taskList.addTask(new Todo("task " + i, i % 2 == 0));
+        }
+
+        List<Integer> visited = new ArrayList<>();
+        assertTrue(taskList.forEachTask(null, 3, 4, (task, index) -> visited.add(index)));
+        assertEquals(List.of(3, 4, 5, 6), visited);
+
+        visited.clear();
+        assertTrue(taskList.forEachTask(new TaskFilter(true, null), 1, 2, (task, index) -> visited.add(index)));
+        assertEquals(List.of(2, 4), visited);
+
+        visited.clear();
+        assertFalse(taskList.forEachTask(new TaskFilter(true, TaskType.TODO), 3, 2, (task, index) -> visited.add(index)));
+        assertEquals(List.of(6, 8), visited);
+
+        assertFalse(taskList.forEachTask(new TaskFilter(null, TaskType.EVENT), 0, 5, (task, index) -> visited.add(index)));
+        assertEquals(List.of(6, 8), visited);
+    }
+
+    @Test
+    public void staysConsistentUnderConcurrentUse() throws Exception {
+        TaskList taskList = new TaskList();
+        int writerCount = 4;
+        int operationsPerWriter = 2000;
+        AtomicInteger netAdds = new AtomicInteger();
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writerCount; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                Random random = new Random(writer);
+                for (int i = 0; i < operationsPerWriter; i++) {
+                    // Each writer only deletes what it can see, so a concurrent delete may empty the list first
+                    try {
+                        int size = taskList.getSize();
+                        int choice = random.nextInt(4);
+                        if (choice < 2 || size == 0) {
+                            taskList.addTask(new Todo("job " + writer + " " + i, false));
+                            netAdds.incrementAndGet();
+                        } else if (choice == 2) {
+                            taskList.markTaskAsDone(random.nextInt(size));
+                        } else {
+                            taskList.deleteTask(random.nextInt(size));
+                            netAdds.decrementAndGet();
+                        }
+                    } catch (IndexOutOfBoundsException e) {
+                        // The list shrank between reading its size and using it
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            threads.add(new Thread(() -> {
+                while (isWriting.get()) {
+                    try {
+                        List<Task> snapshot = taskList.getAllTasks();
+                        int size = snapshot.size();
+                        int count = 0;
+                        for (Task task : snapshot) {
+                            assertTrue(task.getDescription().startsWith("job"));
+                            count++;
+                        }
+                        assertEquals(size, count);
+
+                        int[] positions = taskList.findTasks("job");
+                        for (int i = 1; i < positions.length; i++) {
+                            assertTrue(positions[i - 1] < positions[i]);
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (int i = 0; i < writerCount; i++) {
+            threads.get(i).join();
+        }
+        isWriting.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "Concurrent use failed: " + failures.get(0));
+        assertEquals(netAdds.get(), taskList.getSize());
+        assertEquals(taskList.getSize(), taskList.findTasks("job").length);
+        for (Task task : taskList.getAllTasks()) {
+            assertTrue(taskList.contains(task));
+        }
+    }
 }
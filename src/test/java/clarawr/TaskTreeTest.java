@@ -0,0 +1,102 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TaskTreeTest {
+    @Test
+    public void matchesArrayListUnderRandomChanges() {
+        List<Task> source = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            source.add(new Todo("loaded " + i, false));
+        }
+        List<Task> expected = new ArrayList<>(source);
+        TaskTree tree = TaskTree.of(List.copyOf(source));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            if (expected.isEmpty() || random.nextBoolean()) {
+                Task task = new Todo("added " + i, false);
+                expected.add(task);
+                tree = tree.append(task);
+            } else {
+                int index = random.nextInt(expected.size());
+                expected.remove(index);
+                tree = tree.delete(index);
+            }
+        }
+
+        assertEquals(expected, tree);
+        List<Task> visited = new ArrayList<>();
+        tree.forEach(3, tree.size() - 3, (task, index) -> {
+            assertSame(expected.get(index), task);
+            visited.add(task);
+        });
+        assertEquals(expected.subList(3, expected.size() - 3), visited);
+    }
+
+    @Test
+    public void replacesTasksWithoutChangingEarlierVersions() {
+        List<Task> source = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            source.add(new Todo("loaded " + i, false));
+        }
+        TaskTree original = TaskTree.of(List.copyOf(source));
+        List<Task> expected = new ArrayList<>(source);
+        TaskTree tree = original;
+
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            int index = random.nextInt(expected.size());
+            Task task = new Todo("replaced " + i, true);
+            expected.set(index, task);
+            tree = tree.replace(index, task);
+        }
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), tree.get(i));
+            assertSame(source.get(i), original.get(i));
+        }
+    }
+
+    @Test
+    public void deletesManyTasksInOnePass() {
+        List<Task> expected = new ArrayList<>();
+        TaskTree tree = TaskTree.of(List.of(new Todo("loaded 0", false), new Todo("loaded 1", false)));
+        expected.addAll(tree);
+        for (int i = 0; i < 300; i++) {
+            Task task = new Todo("added " + i, false);
+            expected.add(task);
+            tree = tree.append(task);
+        }
+
+        Random random = new Random(7);
+        int[] indexes = random.ints(0, expected.size()).distinct().limit(120).sorted().toArray();
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            expected.remove(indexes[i]);
+        }
+        TaskTree after = tree.deleteAll(indexes);
+
+        assertEquals(expected, after);
+        assertEquals(expected.get(expected.size() - 1), after.get(after.size() - 1));
+        assertEquals(302, tree.size());
+    }
+
+    @Test
+    public void keepsOldVersionsUnchanged() {
+        Task first = new Todo("first", false);
+        Task second = new Todo("second", false);
+        TaskTree before = TaskTree.EMPTY.append(first).append(second);
+
+        TaskTree after = before.delete(0);
+
+        assertEquals(List.of(first, second), before);
+        assertEquals(List.of(second), after);
+    }
+}
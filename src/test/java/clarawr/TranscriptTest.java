@@ -0,0 +1,66 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TranscriptTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void keepsOnlyRecentMessagesShown() {
+        List<Message> shown = new ArrayList<>();
+        Transcript transcript = new Transcript(shown, tempDir.resolve("history.log").toFile(), 3);
+        for (int i = 0; i < 5; i++) {
+            transcript.add(new Message(i % 2 == 0, "message " + i));
+        }
+
+        assertEquals(4, shown.size());
+        assertSame(Message.OLDER_MESSAGES, shown.get(0));
+        assertEquals("message 2", shown.get(1).getText());
+        assertEquals("message 4", shown.get(3).getText());
+    }
+
+    @Test
+    public void pagesOlderMessagesBackFromHistory() {
+        List<Message> shown = new ArrayList<>();
+        Transcript transcript = new Transcript(shown, tempDir.resolve("history.log").toFile(), 2);
+        int total = Transcript.PAGE_SIZE + 10;
+        for (int i = 0; i < total; i++) {
+            transcript.add(new Message(i % 2 == 0, "message " + i));
+        }
+
+        transcript.showOlder();
+        assertTrue(transcript.hasOlderMessages());
+        assertEquals(Transcript.PAGE_SIZE + 3, shown.size());
+        assertEquals("message " + (total - 2 - Transcript.PAGE_SIZE), shown.get(1).getText());
+        assertTrue(shown.get(1).isUser());
+
+        transcript.showOlder();
+        assertFalse(transcript.hasOlderMessages());
+        assertEquals(total, shown.size());
+        assertEquals("message 0", shown.get(0).getText());
+    }
+
+    @Test
+    public void dropsOldMessagesWithoutHistory() {
+        List<Message> shown = new ArrayList<>();
+        Transcript transcript = new Transcript(shown, null, 2);
+        for (int i = 0; i < 4; i++) {
+            transcript.add(new Message(true, "message " + i));
+        }
+
+        assertFalse(transcript.hasOlderMessages());
+        assertEquals(2, shown.size());
+        assertEquals("message 2", shown.get(0).getText());
+    }
+}
@@ -0,0 +1,102 @@
+package clarawr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkspaceTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void keepsNamedListsApartAndOnlyTheActiveOneLoaded() throws ClarawrException {
+        Workspace workspace = new Workspace(tempDir.toFile());
+        workspace.getTaskList().addTask(new Todo("feed the lion", false));
+
+        workspace.switchTo("Work");
+        assertFalse(workspace.isLoaded());
+        assertEquals("work", workspace.getActiveName());
+        assertEquals(0, workspace.getTaskList().getSize());
+        workspace.getTaskList().addTask(new Todo("write report", false));
+        workspace.getTaskList().addTask(new Todo("send report", false));
+
+        workspace.switchTo("tasks");
+        assertEquals(1, workspace.getTaskList().getSize());
+        assertEquals("feed the lion", workspace.getTaskList().getTask(0).getDescription());
+        workspace.close();
+
+        Workspace reopened = new Workspace(tempDir.toFile());
+        reopened.switchTo("work");
+        assertEquals(2, reopened.getTaskList().getSize());
+        assertEquals(List.of("tasks", "work"), reopened.getListNames());
+        reopened.close();
+    }
+
+    @Test
+    public void remindersLeaveTheActiveListUnread() throws ClarawrException {
+        Workspace workspace = new Workspace(tempDir.toFile());
+        workspace.getTaskList().addTask(new Deadline("report", LocalDateTime.now().plusMinutes(5), false));
+        workspace.switchTo("work");
+        workspace.switchTo("tasks");
+        Reminders reminders = new Reminders(workspace::getLoadedTaskList, workspace::getActiveName,
+                Duration.ofMinutes(15));
+
+        assertEquals(List.of(), reminders.check(LocalDateTime.now()));
+        assertFalse(workspace.isLoaded());
+
+        workspace.getTaskList();
+        assertEquals(1, reminders.check(LocalDateTime.now()).size());
+        workspace.close();
+    }
+
+    @Test
+    public void remindersAreNotRepeatedAfterSwitchingBack() throws ClarawrException {
+        Workspace workspace = new Workspace(tempDir.toFile());
+        LocalDateTime now = LocalDateTime.now();
+        workspace.getTaskList().addTask(new Deadline("report", now.plusHours(5), false));
+        Reminders reminders = new Reminders(workspace::getLoadedTaskList, workspace::getActiveName,
+                Duration.ofMinutes(15), Duration.ofDays(1));
+
+        assertEquals(1, reminders.check(now).size());
+        assertEquals(List.of(), reminders.check(now.plusMinutes(30)));
+
+        workspace.switchTo("work");
+        assertEquals(List.of(), reminders.check(now.plusMinutes(60)));
+        workspace.switchTo("tasks");
+        workspace.getTaskList();
+        assertEquals(List.of(), reminders.check(now.plusMinutes(90)));
+        workspace.close();
+    }
+
+    @Test
+    public void rejectsBadListNames() {
+        Workspace workspace = new Workspace(tempDir.toFile());
+
+        assertThrows(ClarawrException.class, () -> workspace.switchTo("../secrets"));
+        assertThrows(ClarawrException.class, () -> workspace.switchTo("  "));
+        assertEquals("tasks", workspace.getActiveName());
+    }
+
+    @Test
+    public void switchesListsThroughCommands() throws ClarawrException {
+        Clarawr clarawr = new Clarawr(new Workspace(tempDir.toFile()));
+        clarawr.getResponse("todo eat");
+        clarawr.getResponse("switch home");
+        clarawr.getResponse("todo sleep");
+
+        assertTrue(clarawr.getResponse("list").contains("sleep"));
+        assertFalse(clarawr.getResponse("list").contains("eat"));
+        assertEquals("Here are your lists:\n* home\n  tasks\nUse switch [name] to change lists, or to start a new one.",
+                clarawr.getResponse("switch"));
+        clarawr.flush();
+    }
+}